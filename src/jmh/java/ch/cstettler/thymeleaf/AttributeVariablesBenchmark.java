@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Compares exposing the attributes of a component with 20 attributes as variables of their own and as a single
+ * {@code props} variable, covering both setting the variables and resolving them within the component template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = MILLISECONDS)
+@Fork(1)
+public class AttributeVariablesBenchmark {
+
+  @Param({"FLAT", "PROPS"})
+  private AttributeVariables attributeVariables;
+
+  private TemplateEngine templateEngine;
+  private Context context;
+  private Writer writer;
+
+  @Setup
+  public void setUp() {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix("benchmark/");
+    templateResolver.setSuffix(".html");
+    templateResolver.setCacheable(true);
+
+    templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+    templateEngine.addDialect(new ComponentDialect()
+      .addComponent("card", attributeVariables == AttributeVariables.PROPS ? "components/props-card" : "components/card")
+      .attributeVariables(attributeVariables));
+
+    context = new Context();
+    writer = Writer.nullWriter();
+  }
+
+  @Benchmark
+  public void attributeHeavyComponents() {
+    templateEngine.process("pages/attribute-heavy-components", context, writer);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.Writer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * Renders realistic pages using components through a template engine configured with the component dialect.
+ *
+ * <p>Run with {@code mvn -P benchmarks test-compile exec:exec}, JMH options can be passed via {@code -Djmh.args=...}
+ * (defaults to {@code -prof gc} for reporting the allocation rate).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2000, timeUnit = MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = MILLISECONDS)
+@Fork(1)
+public class ComponentRenderingBenchmark {
+
+  private TemplateEngine templateEngine;
+  private Context context;
+  private Writer writer;
+
+  @Setup
+  public void setUp() {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setPrefix("benchmark/");
+    templateResolver.setSuffix(".html");
+    templateResolver.setCacheable(true);
+
+    templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+    templateEngine.addDialect(new ComponentDialect()
+      .addComponent("badge", "components/badge")
+      .addComponent("box", "components/box")
+      .addComponent("table", "components/table")
+      .addComponent("layout", "components/layout")
+      .addComponent("card", "components/card"));
+
+    context = new Context();
+    writer = Writer.nullWriter();
+  }
+
+  @Benchmark
+  public void manySmallComponents() {
+    templateEngine.process("pages/many-small-components", context, writer);
+  }
+
+  @Benchmark
+  public void deeplyNestedComponents() {
+    templateEngine.process("pages/deeply-nested-components", context, writer);
+  }
+
+  @Benchmark
+  public void manyNamedSlots() {
+    templateEngine.process("pages/many-named-slots", context, writer);
+  }
+
+  @Benchmark
+  public void largeDefaultSlot() {
+    templateEngine.process("pages/large-default-slot", context, writer);
+  }
+
+  @Benchmark
+  public void attributeHeavyComponents() {
+    templateEngine.process("pages/attribute-heavy-components", context, writer);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.standard.expression.IStandardExpression;
+import org.thymeleaf.standard.expression.IStandardExpressionParser;
+
+/**
+ * Caches whether a component attribute value is an expression or a plain literal, together with the parsed expression.
+ * This way, each distinct attribute value is parsed at most once as long as it is among the most recently used values,
+ * and literal values never raise a parse exception on the rendering path. Values containing an expression to preprocess
+ * ({@code __...__}) depend on the context and are always parsed again.
+ */
+final class AttributeExpressionCache {
+
+  private static final int MAX_SIZE = 10_000;
+  private static final Object LITERAL = new Object();
+  private static final String PREPROCESSING_DELIMITER = "__";
+
+  private final LeastRecentlyUsedCache<String, Object> expressions = new LeastRecentlyUsedCache<>(MAX_SIZE);
+
+  Object resolve(String value, ITemplateContext context, IStandardExpressionParser expressionParser) {
+    if (value == null) {
+      return null;
+    }
+
+    Object expression = expressions.get(value);
+
+    if (expression == null) {
+      expression = parse(value, context, expressionParser);
+
+      if (!requiresPreprocessing(value)) {
+        expressions.put(value, expression);
+      }
+    }
+
+    if (expression == LITERAL) {
+      return value;
+    }
+
+    try {
+      return ((IStandardExpression) expression).execute(context);
+    } catch (TemplateProcessingException e) {
+      return value;
+    }
+  }
+
+  private static boolean requiresPreprocessing(String value) {
+    // same condition as the expression preprocessing of Thymeleaf, which only evaluates delimited pairs
+    int start = value.indexOf(PREPROCESSING_DELIMITER);
+
+    return start >= 0 && value.indexOf(PREPROCESSING_DELIMITER, start + PREPROCESSING_DELIMITER.length()) >= 0;
+  }
+
+  private static Object parse(String value, ITemplateContext context, IStandardExpressionParser expressionParser) {
+    try {
+      return expressionParser.parseExpression(context, value);
+    } catch (TemplateProcessingException e) {
+      return LITERAL;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Arrays.copyOf;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.IProcessableElementTag;
+
+/**
+ * Split of the attributes of a component element tag into component attributes, named without dialect prefix, and
+ * additional attributes passed on to the component, computed in a single pass. Element tags of cached templates are
+ * shared between renderings, so the partition is computed once per element tag and only the attribute values are
+ * resolved on each rendering.
+ */
+final class AttributePartition {
+
+  private static final IAttribute[] NO_ATTRIBUTES = new IAttribute[0];
+
+  private final ComponentAttributes declaredAttributes;
+  private final int[] componentIndexes;
+  private final String[] componentNames;
+  private final int[] declaredIndexes;
+  private final int[] undefinedDeclaredIndexes;
+  private final String[] propNames;
+  private final int[] additionalIndexes;
+  private final String[] additionalNames;
+
+  private AttributePartition(
+    ComponentAttributes declaredAttributes,
+    int[] componentIndexes,
+    String[] componentNames,
+    int[] declaredIndexes,
+    int[] undefinedDeclaredIndexes,
+    int[] additionalIndexes,
+    String[] additionalNames
+  ) {
+    this.declaredAttributes = declaredAttributes;
+    this.componentIndexes = componentIndexes;
+    this.componentNames = componentNames;
+    this.declaredIndexes = declaredIndexes;
+    this.undefinedDeclaredIndexes = undefinedDeclaredIndexes;
+    this.propNames = propNames(componentNames, undefinedDeclaredIndexes, declaredAttributes);
+    this.additionalIndexes = additionalIndexes;
+    this.additionalNames = additionalNames;
+  }
+
+  static AttributePartition of(IProcessableElementTag elementTag, String dialectPrefix, ComponentAttributes declaredAttributes) {
+    IAttribute[] attributes = elementTag.getAllAttributes() != null ? elementTag.getAllAttributes() : NO_ATTRIBUTES;
+
+    int componentCount = 0;
+    int[] componentIndexes = new int[attributes.length];
+    String[] componentNames = new String[attributes.length];
+    int[] declaredIndexes = new int[attributes.length];
+    boolean[] defined = new boolean[declaredAttributes != null ? declaredAttributes.size() : 0];
+
+    int additionalCount = 0;
+    int[] additionalIndexes = new int[attributes.length];
+    String[] additionalNames = new String[attributes.length];
+
+    for (int i = 0; i < attributes.length; i++) {
+      IAttribute attribute = attributes[i];
+      AttributeName attributeName = attribute.getAttributeDefinition().getAttributeName();
+
+      if (!dialectPrefix.equals(attributeName.getPrefix())) {
+        additionalIndexes[additionalCount] = i;
+        additionalNames[additionalCount] = attribute.getAttributeCompleteName();
+        additionalCount++;
+        continue;
+      }
+
+      if (attributeName.getAttributeName().equals(StreamingComponentTemplateHandler.STREAMED_COMPONENT_ATTRIBUTE)) {
+        continue;
+      }
+
+      if (declaredAttributes != null) {
+        int declaredIndex = declaredAttributes.indexOf(attribute.getAttributeCompleteName(), dialectPrefix.length() + 1);
+
+        if (declaredIndex < 0) {
+          if (attributeName.getAttributeName().equals("slot")) {
+            continue;
+          }
+
+          throw new IllegalStateException("unknown attribute '" + attribute.getAttributeCompleteName() + "' for component '"
+            + elementTag.getElementCompleteName() + "', declared attributes are " + declaredAttributes.describe());
+        }
+
+        componentNames[componentCount] = declaredAttributes.name(declaredIndex);
+        declaredIndexes[componentCount] = declaredIndex;
+        defined[declaredIndex] = true;
+      } else {
+        componentNames[componentCount] = attribute.getAttributeCompleteName().substring(dialectPrefix.length() + 1);
+      }
+
+      componentIndexes[componentCount] = i;
+      componentCount++;
+    }
+
+    int undefinedCount = 0;
+    int[] undefinedDeclaredIndexes = new int[defined.length];
+
+    for (int i = 0; i < defined.length; i++) {
+      if (!defined[i]) {
+        if (declaredAttributes.isRequired(i)) {
+          throw new IllegalStateException("missing required attribute '" + dialectPrefix + ":" + declaredAttributes.name(i)
+            + "' for component '" + elementTag.getElementCompleteName() + "'");
+        }
+
+        undefinedDeclaredIndexes[undefinedCount++] = i;
+      }
+    }
+
+    return new AttributePartition(
+      declaredAttributes,
+      copyOf(componentIndexes, componentCount),
+      copyOf(componentNames, componentCount),
+      declaredAttributes != null ? copyOf(declaredIndexes, componentCount) : null,
+      copyOf(undefinedDeclaredIndexes, undefinedCount),
+      copyOf(additionalIndexes, additionalCount),
+      copyOf(additionalNames, additionalCount)
+    );
+  }
+
+  /**
+   * Resolves the component attributes of the element tag, converted to their declared types and completed by the
+   * default values of undefined declared attributes. Lazily resolved values are evaluated on first access.
+   */
+  void resolveComponentAttributes(
+    IAttribute[] attributes,
+    Function<String, Object> valueResolver,
+    boolean lazy,
+    BiConsumer<String, Object> componentAttributes
+  ) {
+    for (int i = 0; i < componentIndexes.length; i++) {
+      componentAttributes.accept(componentNames[i], componentAttributeValue(attributes, i, valueResolver, lazy));
+    }
+
+    for (int undefinedDeclaredIndex : undefinedDeclaredIndexes) {
+      componentAttributes.accept(declaredAttributes.name(undefinedDeclaredIndex), declaredAttributes.defaultValue(undefinedDeclaredIndex));
+    }
+  }
+
+  /**
+   * Resolves the component attributes of the element tag into a single props object, laid out as the component
+   * attributes followed by the undefined declared attributes.
+   */
+  ComponentProps resolveProps(IAttribute[] attributes, Function<String, Object> valueResolver, boolean lazy) {
+    Object[] values = new Object[propNames.length];
+
+    for (int i = 0; i < componentIndexes.length; i++) {
+      values[i] = componentAttributeValue(attributes, i, valueResolver, lazy);
+    }
+
+    for (int i = 0; i < undefinedDeclaredIndexes.length; i++) {
+      values[componentIndexes.length + i] = declaredAttributes.defaultValue(undefinedDeclaredIndexes[i]);
+    }
+
+    return new ComponentProps(propNames, values);
+  }
+
+  Map<String, Object> resolveAdditionalAttributes(IAttribute[] attributes, Function<String, Object> valueResolver) {
+    Map<String, Object> additionalAttributes = new HashMap<>();
+
+    for (int i = 0; i < additionalIndexes.length; i++) {
+      additionalAttributes.put(additionalNames[i], valueResolver.apply(attributes[additionalIndexes[i]].getValue()));
+    }
+
+    return additionalAttributes;
+  }
+
+  private Object componentAttributeValue(IAttribute[] attributes, int componentIndex, Function<String, Object> valueResolver, boolean lazy) {
+    if (lazy) {
+      return new LazyAttributeValue(() -> componentAttributeValue(attributes, componentIndex, valueResolver, false));
+    }
+
+    Object value = valueResolver.apply(attributes[componentIndexes[componentIndex]].getValue());
+
+    return declaredIndexes != null ? declaredAttributes.convert(declaredIndexes[componentIndex], value) : value;
+  }
+
+  private static String[] propNames(String[] componentNames, int[] undefinedDeclaredIndexes, ComponentAttributes declaredAttributes) {
+    String[] propNames = copyOf(componentNames, componentNames.length + undefinedDeclaredIndexes.length);
+
+    for (int i = 0; i < undefinedDeclaredIndexes.length; i++) {
+      propNames[componentNames.length + i] = declaredAttributes.name(undefinedDeclaredIndexes[i]);
+    }
+
+    return propNames;
+  }
+}
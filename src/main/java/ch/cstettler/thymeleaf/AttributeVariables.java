@@ -0,0 +1,34 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+/**
+ * Defines how the attributes of a component are exposed to its template.
+ */
+public enum AttributeVariables {
+
+  /**
+   * Every component attribute is exposed as a variable of its own, e.g. {@code ${title}}.
+   */
+  FLAT,
+
+  /**
+   * All component attributes are exposed as a single read-only map variable named {@code props}, e.g.
+   * {@code ${props.title}}, which sets a single variable per component rendering irrespective of the number of
+   * attributes.
+   */
+  PROPS
+}
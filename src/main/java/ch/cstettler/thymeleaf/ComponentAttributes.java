@@ -0,0 +1,232 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Arrays.copyOf;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Declares the attributes of a component: their names, target types, whether they are required and their default
+ * values. Components registered with declared attributes resolve their parameters by position instead of by name,
+ * apply defaults without evaluating any expression and reject undeclared or missing attributes.
+ *
+ * <pre>
+ * new ComponentDialect()
+ *   .addComponent("card", "components/card.html", attributes()
+ *     .required("title", String.class)
+ *     .optional("collapsed", Boolean.class, false));
+ * </pre>
+ */
+public final class ComponentAttributes {
+
+  private String[] names;
+  private Class<?>[] types;
+  private boolean[] required;
+  private Object[] defaultValues;
+
+  private ComponentAttributes() {
+    this.names = new String[0];
+    this.types = new Class<?>[0];
+    this.required = new boolean[0];
+    this.defaultValues = new Object[0];
+  }
+
+  /**
+   * Creates an empty attribute declaration.
+   *
+   * @return the attribute declaration
+   */
+  public static ComponentAttributes attributes() {
+    return new ComponentAttributes();
+  }
+
+  /**
+   * Declares a required attribute.
+   *
+   * @param name the attribute name without dialect prefix
+   * @param type the type the attribute value is converted to
+   * @return this attribute declaration
+   */
+  public ComponentAttributes required(String name, Class<?> type) {
+    return add(name, type, true, null);
+  }
+
+  /**
+   * Declares an optional attribute defaulting to {@code null}.
+   *
+   * @param name the attribute name without dialect prefix
+   * @param type the type the attribute value is converted to
+   * @return this attribute declaration
+   */
+  public ComponentAttributes optional(String name, Class<?> type) {
+    return add(name, type, false, null);
+  }
+
+  /**
+   * Declares an optional attribute with a default value used when the attribute is not set.
+   *
+   * @param name the attribute name without dialect prefix
+   * @param type the type the attribute value is converted to
+   * @param defaultValue the default value
+   * @return this attribute declaration
+   */
+  public ComponentAttributes optional(String name, Class<?> type, Object defaultValue) {
+    return add(name, type, false, defaultValue);
+  }
+
+  int size() {
+    return names.length;
+  }
+
+  String name(int index) {
+    return names[index];
+  }
+
+  boolean isRequired(int index) {
+    return required[index];
+  }
+
+  Object defaultValue(int index) {
+    return defaultValues[index];
+  }
+
+  int indexOf(String completeAttributeName, int prefixLength) {
+    int nameLength = completeAttributeName.length() - prefixLength;
+
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].length() == nameLength && completeAttributeName.regionMatches(prefixLength, names[i], 0, nameLength)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  Object convert(int index, Object value) {
+    return convert(names[index], types[index], value);
+  }
+
+  String describe() {
+    return Arrays.toString(names);
+  }
+
+  ComponentAttributes copy() {
+    ComponentAttributes copy = new ComponentAttributes();
+    copy.names = names.clone();
+    copy.types = types.clone();
+    copy.required = required.clone();
+    copy.defaultValues = defaultValues.clone();
+
+    return copy;
+  }
+
+  private ComponentAttributes add(String name, Class<?> type, boolean required, Object defaultValue) {
+    if (name == null || name.isEmpty() || name.indexOf(':') >= 0) {
+      throw new IllegalArgumentException("invalid attribute name '" + name + "'");
+    }
+
+    if (type == null) {
+      throw new IllegalArgumentException("no type defined for attribute '" + name + "'");
+    }
+
+    if (type.isPrimitive()) {
+      throw new IllegalArgumentException("primitive type " + type.getName() + " of attribute '" + name + "' not supported, use wrapper type instead");
+    }
+
+    if (indexOf(name) >= 0) {
+      throw new IllegalArgumentException("duplicate attribute '" + name + "'");
+    }
+
+    int size = names.length;
+    this.names = copyOf(names, size + 1);
+    this.types = copyOf(types, size + 1);
+    this.required = copyOf(this.required, size + 1);
+    this.defaultValues = copyOf(defaultValues, size + 1);
+
+    this.names[size] = name;
+    this.types[size] = type;
+    this.required[size] = required;
+    this.defaultValues[size] = convert(name, type, defaultValue);
+
+    return this;
+  }
+
+  private int indexOf(String name) {
+    return indexOf(name, 0);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object convert(String name, Class<?> type, Object value) {
+    if (value == null || type.isInstance(value)) {
+      return value;
+    }
+
+    try {
+      if (type == String.class) {
+        return value.toString();
+      }
+
+      if (value instanceof String) {
+        String stringValue = ((String) value).trim();
+
+        if (type == Boolean.class) {
+          if ("true".equalsIgnoreCase(stringValue) || "false".equalsIgnoreCase(stringValue)) {
+            return Boolean.valueOf(stringValue);
+          }
+        } else if (type == Integer.class) {
+          return Integer.valueOf(stringValue);
+        } else if (type == Long.class) {
+          return Long.valueOf(stringValue);
+        } else if (type == Double.class) {
+          return Double.valueOf(stringValue);
+        } else if (type == BigDecimal.class) {
+          return new BigDecimal(stringValue);
+        } else if (type.isEnum()) {
+          return Enum.valueOf((Class<? extends Enum>) type, stringValue);
+        }
+      }
+
+      if (value instanceof Number) {
+        // numbers are only converted if the declared type holds the exact same value, e.g. 3.7 is no Integer
+        BigDecimal decimalValue = new BigDecimal(value.toString());
+
+        if (type == Integer.class && isExact(decimalValue, decimalValue.intValue())) {
+          return decimalValue.intValue();
+        } else if (type == Long.class && isExact(decimalValue, decimalValue.longValue())) {
+          return decimalValue.longValue();
+        } else if (type == Double.class && isExact(decimalValue, decimalValue.doubleValue())) {
+          return decimalValue.doubleValue();
+        } else if (type == BigDecimal.class) {
+          return decimalValue;
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("cannot convert value '" + value + "' of attribute '" + name + "' to " + type.getName(), e);
+    }
+
+    throw new IllegalArgumentException("cannot convert value '" + value + "' of attribute '" + name + "' to " + type.getName());
+  }
+
+  private static boolean isExact(BigDecimal value, long convertedValue) {
+    return BigDecimal.valueOf(convertedValue).compareTo(value) == 0;
+  }
+
+  private static boolean isExact(BigDecimal value, double convertedValue) {
+    return !Double.isInfinite(convertedValue) && new BigDecimal(Double.toString(convertedValue)).compareTo(value) == 0;
+  }
+}
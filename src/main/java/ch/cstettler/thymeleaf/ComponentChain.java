@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+/**
+ * Chain of the components expanded around the current position of a rendering, innermost component last. Passed down
+ * as local variable, so that nested components extend the chain of their enclosing component without any shared state.
+ * All chains of a rendering share the counter of its expanded events, if limited.
+ */
+final class ComponentChain {
+
+  private final ComponentChain parent;
+  private final String componentName;
+  private final int depth;
+  private final ExpandedEvents expandedEvents;
+
+  ComponentChain(ComponentChain parent, String componentName, ExpandedEvents expandedEvents) {
+    this.parent = parent;
+    this.componentName = componentName;
+    this.depth = parent != null ? parent.depth + 1 : 1;
+    this.expandedEvents = expandedEvents;
+  }
+
+  int depth() {
+    return depth;
+  }
+
+  ExpandedEvents expandedEvents() {
+    return expandedEvents;
+  }
+
+  @Override
+  public String toString() {
+    String[] componentNames = new String[depth];
+    ComponentChain chain = this;
+
+    for (int i = depth - 1; i >= 0; i--) {
+      componentNames[i] = chain.componentName;
+      chain = chain.parent;
+    }
+
+    return String.join(" > ", componentNames);
+  }
+
+  static final class ExpandedEvents {
+
+    // a rendering is processed by a single thread at a time
+    long count;
+  }
+}
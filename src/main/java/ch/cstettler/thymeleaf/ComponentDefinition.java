@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+/**
+ * Registration of a component: its element name, the template it is rendered from, its optionally declared
+ * attributes and how it is rendered.
+ */
+final class ComponentDefinition {
+
+  private final String elementName;
+  private final String templatePath;
+  private final ComponentAttributes declaredAttributes;
+  private final Rendering rendering;
+
+  ComponentDefinition(String elementName, String templatePath, ComponentAttributes declaredAttributes, Rendering rendering) {
+    this.elementName = elementName;
+    this.templatePath = templatePath;
+    this.declaredAttributes = declaredAttributes;
+    this.rendering = rendering;
+  }
+
+  String elementName() {
+    return elementName;
+  }
+
+  String templatePath() {
+    return templatePath;
+  }
+
+  ComponentAttributes declaredAttributes() {
+    return declaredAttributes;
+  }
+
+  Rendering rendering() {
+    return rendering;
+  }
+
+  enum Rendering {
+
+    /**
+     * The component content is collected and merged into the component template.
+     */
+    BUFFERED,
+
+    /**
+     * The component template is written around the default slot content while the page is processed, without
+     * collecting the content.
+     */
+    STREAMING,
+
+    /**
+     * The output of component usages without content only depends on the attribute values and is cached.
+     */
+    PURE
+  }
+}
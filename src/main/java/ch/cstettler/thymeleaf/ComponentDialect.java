@@ -15,32 +15,375 @@
  */
 package ch.cstettler.thymeleaf;
 
+import static ch.cstettler.thymeleaf.ComponentDefinition.Rendering.BUFFERED;
+import static ch.cstettler.thymeleaf.ComponentDefinition.Rendering.PURE;
+import static ch.cstettler.thymeleaf.ComponentDefinition.Rendering.STREAMING;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import org.thymeleaf.ITemplateEngine;
 import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.dialect.IExecutionAttributeDialect;
+import org.thymeleaf.dialect.IPreProcessorDialect;
+import org.thymeleaf.preprocessor.IPreProcessor;
+import org.thymeleaf.preprocessor.PreProcessor;
 import org.thymeleaf.processor.IProcessor;
 
-public class ComponentDialect extends AbstractProcessorDialect {
+public class ComponentDialect extends AbstractProcessorDialect implements IPreProcessorDialect, IExecutionAttributeDialect {
 
-  private static final String DIALECT_PREFIX = "pl";
+  private static final String DEFAULT_PREFIX = "pl";
 
-  private final Set<IProcessor> processors;
+  private final List<ComponentDefinition> componentDefinitions;
+  private final AttributeExpressionCache expressionCache;
+  private ComponentRenderListener renderListener;
+  private boolean dispatchingProcessor;
+  private PureComponentCache pureComponents;
+  private int maxNestingDepth;
+  private long maxExpandedEvents;
+  private AttributeVariables attributeVariables;
+  private boolean lazyAttributes;
+  private Set<IProcessor> processors;
+  private ComponentNamespace namespace;
+  private List<ComponentRenderer> componentRenderers;
+  private StreamingComponents streamingComponents;
 
   public ComponentDialect() {
-    super("Thymeleaf UI Component Dialect", DIALECT_PREFIX, 0);
+    this(DEFAULT_PREFIX);
+  }
+
+  /**
+   * Creates a component dialect for components used with the given prefix, e.g. {@code ds} for {@code <ds:button>}.
+   * Multiple component dialects with different prefixes can be registered with the same template engine.
+   *
+   * @param prefix the prefix of the component elements and attributes
+   */
+  public ComponentDialect(String prefix) {
+    super("Thymeleaf UI Component Dialect", validPrefix(prefix), 0);
 
-    this.processors = new HashSet<>();
-    this.processors.add(new RemoveSlotAttributeProcessor(DIALECT_PREFIX, "slot"));
+    this.componentDefinitions = new ArrayList<>();
+    this.expressionCache = new AttributeExpressionCache();
+    this.renderListener = ComponentRenderListener.NONE;
+    this.pureComponents = new PureComponentCache(PureComponentCache.DEFAULT_MAX_SIZE);
+    this.maxNestingDepth = ComponentExpansionGuard.DEFAULT_MAX_NESTING_DEPTH;
+    this.maxExpandedEvents = ComponentExpansionGuard.UNLIMITED;
+    this.attributeVariables = AttributeVariables.FLAT;
   }
 
   public ComponentDialect addComponent(String elementName, String templatePath) {
-    processors.add(new ComponentModelProcessor(DIALECT_PREFIX, elementName, templatePath));
+    return addComponent(new ComponentDefinition(elementName, templatePath, null, BUFFERED));
+  }
+
+  public ComponentDialect addComponent(String elementName, String templatePath, ComponentAttributes attributes) {
+    return addComponent(new ComponentDefinition(elementName, templatePath, attributes.copy(), BUFFERED));
+  }
+
+  /**
+   * Registers a component whose default slot content is streamed while the page is processed instead of being
+   * buffered, for components whose template defines the default slot as its only slot.
+   * <p>
+   * Streaming relies on a template pre-processor, which Thymeleaf applies to every template of the template engine once
+   * a single streaming component is registered. Cached templates parsed on their own, e.g. fragments included via
+   * {@code th:insert} or {@code th:replace}, are then rebuilt by Thymeleaf each time they are used, and the attributes
+   * of components used within them are analysed again on each use.
+   *
+   * @param elementName the element name of the component
+   * @param templatePath the path of the component template
+   * @return this dialect
+   */
+  public ComponentDialect addStreamingComponent(String elementName, String templatePath) {
+    return addComponent(new ComponentDefinition(elementName, templatePath, null, STREAMING));
+  }
+
+  /**
+   * Registers a streaming component with declared attributes, see {@link #addStreamingComponent(String, String)} for
+   * the cost of streaming components for all templates of the template engine.
+   *
+   * @param elementName the element name of the component
+   * @param templatePath the path of the component template
+   * @param attributes the declared attributes of the component
+   * @return this dialect
+   */
+  public ComponentDialect addStreamingComponent(String elementName, String templatePath, ComponentAttributes attributes) {
+    return addComponent(new ComponentDefinition(elementName, templatePath, attributes.copy(), STREAMING));
+  }
+
+  public ComponentDialect addPureComponent(String elementName, String templatePath) {
+    return addComponent(new ComponentDefinition(elementName, templatePath, null, PURE));
+  }
+
+  public ComponentDialect addPureComponent(String elementName, String templatePath, ComponentAttributes attributes) {
+    return addComponent(new ComponentDefinition(elementName, templatePath, attributes.copy(), PURE));
+  }
+
+  public ComponentDialect addComponents(String classpathLocation, String templateRoot) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader() != null
+      ? Thread.currentThread().getContextClassLoader()
+      : ComponentDialect.class.getClassLoader();
+
+    ComponentScanner.componentNamesIn(classLoader, classpathLocation).forEach(elementName -> {
+      if (!isRegistered(elementName)) {
+        addComponent(new ComponentDefinition(elementName, templateRoot + "/" + elementName + "/" + elementName, null, BUFFERED));
+      }
+    });
+
+    return this;
+  }
+
+  public ComponentDialect renderListener(ComponentRenderListener renderListener) {
+    this.renderListener = renderListener != null ? renderListener : ComponentRenderListener.NONE;
+    this.processors = null;
+
+    return this;
+  }
+
+  public ComponentDialect dispatchingProcessor(boolean dispatchingProcessor) {
+    this.dispatchingProcessor = dispatchingProcessor;
+    this.processors = null;
+
+    return this;
+  }
+
+  /**
+   * Defines how component attributes are exposed to component templates: as variables of their own (e.g.
+   * {@code ${title}}, the default) or as a single {@code props} variable (e.g. {@code ${props.title}}).
+   *
+   * @param attributeVariables the way of exposing component attributes
+   * @return this dialect
+   */
+  public synchronized ComponentDialect attributeVariables(AttributeVariables attributeVariables) {
+    if (attributeVariables == null) {
+      throw new IllegalArgumentException("attribute variables must not be null");
+    }
+
+    this.attributeVariables = attributeVariables;
+    this.processors = null;
 
     return this;
   }
 
+  /**
+   * Evaluates the component attribute values on first access within the component template instead of when the
+   * component is rendered, memoised for the rest of the component rendering. Attribute values not accessed, e.g. within
+   * a {@code th:if} branch not taken, are never evaluated. Values of pure components and additional attributes are
+   * still evaluated right away.
+   *
+   * @param lazyAttributes whether to evaluate component attribute values lazily
+   * @return this dialect
+   */
+  public synchronized ComponentDialect lazyAttributes(boolean lazyAttributes) {
+    this.lazyAttributes = lazyAttributes;
+    this.processors = null;
+
+    return this;
+  }
+
+  public synchronized ComponentDialect pureComponentCacheSize(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("pure component cache size must be positive, but was " + maxSize);
+    }
+
+    this.pureComponents = new PureComponentCache(maxSize);
+    this.processors = null;
+
+    return this;
+  }
+
+  /**
+   * Limits the nesting depth of components, e.g. to stop components using themselves directly or through a slot.
+   * Renderings exceeding it fail with the chain of nested components. Defaults to 64.
+   *
+   * @param maxNestingDepth the maximum number of nested components
+   * @return this dialect
+   */
+  public synchronized ComponentDialect maxNestingDepth(int maxNestingDepth) {
+    if (maxNestingDepth <= 0) {
+      throw new IllegalArgumentException("maximum nesting depth must be positive, but was " + maxNestingDepth);
+    }
+
+    this.maxNestingDepth = maxNestingDepth;
+    this.processors = null;
+
+    return this;
+  }
+
+  /**
+   * Limits the total number of events of the component models expanded per rendering, including the slot contents
+   * merged into them. Renderings exceeding it fail with the chain of components leading to the component exceeding it.
+   * Unlimited by default.
+   *
+   * @param maxExpandedEvents the maximum number of expanded events per rendering
+   * @return this dialect
+   */
+  public synchronized ComponentDialect maxExpandedEvents(long maxExpandedEvents) {
+    if (maxExpandedEvents <= 0) {
+      throw new IllegalArgumentException("maximum expanded events must be positive, but was " + maxExpandedEvents);
+    }
+
+    this.maxExpandedEvents = maxExpandedEvents;
+    this.processors = null;
+
+    return this;
+  }
+
+  public synchronized PureComponentCacheStatistics pureComponentCacheStatistics() {
+    return pureComponents.statistics();
+  }
+
+  /**
+   * Reports the memory held by the analysed fragments of every component loaded so far, across all template engines
+   * this dialect is registered with. Components not rendered or warmed up yet are reported with an empty footprint.
+   *
+   * @return the footprints by component name
+   */
+  public Map<String, ComponentFootprint> componentFootprints() {
+    Map<String, ComponentFootprint> componentFootprints = new TreeMap<>();
+
+    for (ComponentRenderer componentRenderer : componentRenderers()) {
+      componentFootprints.put(componentRenderer.elementName(), componentRenderer.footprint());
+    }
+
+    return componentFootprints;
+  }
+
+  /**
+   * Loads and analyses the templates of all registered components in parallel, so that the first renderings do not
+   * have to. The templates are cached by the template engine independently of the pages using them, provided the
+   * template resolvers mark them as cacheable. Failing components (e.g. missing templates) are reported in the result
+   * instead of failing the warm-up as a whole.
+   * <p>
+   * The returned future completes as soon as all components have been processed. To bound the warm-up time, wait for
+   * it with a timeout, e.g. {@code warmUp(templateEngine, executor).get(30, SECONDS)}.
+   *
+   * @param templateEngine the template engine this dialect is registered with
+   * @param executor the executor to load the component templates with, e.g. a fixed or virtual thread pool
+   * @return the future warm-up result
+   */
+  public CompletableFuture<ComponentWarmUpResult> warmUp(ITemplateEngine templateEngine, Executor executor) {
+    // initializes the template engine, which registers the processors of this dialect
+    templateEngine.getConfiguration();
+
+    List<ComponentRenderer> componentRenderers = componentRenderers();
+    List<CompletableFuture<Throwable>> warmUps = componentRenderers.stream()
+      .map(componentRenderer -> CompletableFuture.runAsync(() -> componentRenderer.warmUp(templateEngine), executor)
+        .handle((result, failure) -> failure instanceof CompletionException ? failure.getCause() : failure))
+      .collect(toList());
+
+    return CompletableFuture.allOf(warmUps.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      List<String> warmedUpComponents = new ArrayList<>();
+      Map<String, Throwable> failures = new TreeMap<>();
+
+      for (int i = 0; i < componentRenderers.size(); i++) {
+        Throwable failure = warmUps.get(i).join();
+
+        if (failure == null) {
+          warmedUpComponents.add(componentRenderers.get(i).elementName());
+        } else {
+          failures.put(componentRenderers.get(i).elementName(), failure);
+        }
+      }
+
+      return new ComponentWarmUpResult(warmedUpComponents, failures);
+    });
+  }
+
   @Override
-  public Set<IProcessor> getProcessors(String dialectPrefix) {
+  public synchronized Set<IProcessor> getProcessors(String dialectPrefix) {
+    // the template engine passes a different prefix if the dialect is registered with a prefix of its own
+    if (processors == null || !namespace.prefix().equals(dialectPrefix)) {
+      ComponentNamespace namespace = new ComponentNamespace(dialectPrefix);
+      ComponentExpansionGuard expansionGuard = new ComponentExpansionGuard(namespace, maxNestingDepth, maxExpandedEvents);
+      Set<IProcessor> processors = new HashSet<>();
+      processors.add(new RemoveSlotAttributeProcessor(dialectPrefix, "slot"));
+      List<ComponentRenderer> componentRenderers = componentDefinitions.stream()
+        .map(componentDefinition -> new ComponentRenderer(
+          namespace, componentDefinition, expressionCache, renderListener, pureComponents, expansionGuard,
+          attributeVariables, lazyAttributes))
+        .collect(toList());
+
+      if (dispatchingProcessor) {
+        processors.add(new ComponentDispatchingProcessor(namespace, componentRenderers));
+      } else {
+        componentRenderers.forEach(componentRenderer -> processors.add(new ComponentModelProcessor(namespace, componentRenderer)));
+      }
+
+      StreamingComponents streamingComponents = new StreamingComponents(namespace, componentRenderers);
+
+      if (!streamingComponents.isEmpty()) {
+        processors.add(new StreamedComponentProcessor(namespace, streamingComponents));
+      }
+
+      this.processors = processors;
+      this.namespace = namespace;
+      this.componentRenderers = componentRenderers;
+      this.streamingComponents = streamingComponents;
+    }
+
     return processors;
   }
+
+  @Override
+  public int getDialectPreProcessorPrecedence() {
+    return 0;
+  }
+
+  @Override
+  public synchronized Set<IPreProcessor> getPreProcessors() {
+    // pre-processors make Thymeleaf rebuild every cached template parsed on its own on each use, so only register one
+    // if required
+    return streamingComponents().isEmpty()
+      ? emptySet()
+      : singleton(new PreProcessor(HTML, StreamingComponentTemplateHandler.class, 0));
+  }
+
+  @Override
+  public synchronized Map<String, Object> getExecutionAttributes() {
+    StreamingComponents streamingComponents = streamingComponents();
+
+    // one entry per prefix, so that the streaming components of multiple component dialects do not replace each other
+    return singletonMap(StreamingComponentTemplateHandler.STREAMING_COMPONENTS + "." + namespace.prefix(), streamingComponents);
+  }
+
+  private synchronized List<ComponentRenderer> componentRenderers() {
+    getProcessors(namespace != null ? namespace.prefix() : getPrefix());
+
+    return componentRenderers;
+  }
+
+  private synchronized StreamingComponents streamingComponents() {
+    getProcessors(namespace != null ? namespace.prefix() : getPrefix());
+
+    return streamingComponents;
+  }
+
+  private static String validPrefix(String prefix) {
+    if (prefix == null || prefix.isBlank() || !prefix.equals(prefix.trim()) || prefix.contains(":")) {
+      throw new IllegalArgumentException("invalid component prefix '" + prefix + "'");
+    }
+
+    return prefix;
+  }
+
+  private synchronized boolean isRegistered(String elementName) {
+    return componentDefinitions.stream().anyMatch(componentDefinition -> componentDefinition.elementName().equals(elementName));
+  }
+
+  private synchronized ComponentDialect addComponent(ComponentDefinition componentDefinition) {
+    componentDefinitions.removeIf(existing -> existing.elementName().equals(componentDefinition.elementName()));
+    componentDefinitions.add(componentDefinition);
+    processors = null;
+
+    return this;
+  }
 }
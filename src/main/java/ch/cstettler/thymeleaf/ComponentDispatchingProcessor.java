@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static ch.cstettler.thymeleaf.ComponentModelProcessor.firstOpenOrStandaloneElementTag;
+import static org.thymeleaf.standard.processor.StandardReplaceTagProcessor.PRECEDENCE;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.AbstractProcessor;
+import org.thymeleaf.processor.element.IElementModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.processor.element.MatchingAttributeName;
+import org.thymeleaf.processor.element.MatchingElementName;
+
+/**
+ * Single processor for all components, matching all elements with the prefix of the component namespace and
+ * dispatching to the renderer of the respective component, looked up by the element name. Elements without a
+ * registered component (e.g. slots or unknown elements) are buffered as element models as well, but left unchanged.
+ */
+class ComponentDispatchingProcessor extends AbstractProcessor implements IElementModelProcessor {
+
+  private final ComponentNamespace namespace;
+  private final MatchingElementName matchingElementName;
+  private final Map<String, ComponentRenderer> componentRenderers;
+
+  ComponentDispatchingProcessor(ComponentNamespace namespace, List<ComponentRenderer> componentRenderers) {
+    super(HTML, PRECEDENCE);
+
+    this.namespace = namespace;
+    this.matchingElementName = MatchingElementName.forAllElementsWithPrefix(HTML, namespace.prefix());
+    this.componentRenderers = new HashMap<>();
+
+    // thymeleaf matches html element names case-insensitively and provides them in lower case
+    componentRenderers.forEach(componentRenderer ->
+      this.componentRenderers.putIfAbsent(componentRenderer.elementName().toLowerCase(Locale.ROOT), componentRenderer));
+  }
+
+  @Override
+  public MatchingElementName getMatchingElementName() {
+    return matchingElementName;
+  }
+
+  @Override
+  public MatchingAttributeName getMatchingAttributeName() {
+    return null;
+  }
+
+  @Override
+  public void process(ITemplateContext context, IModel model, IElementModelStructureHandler structureHandler) {
+    IProcessableElementTag componentElementTag = firstOpenOrStandaloneElementTag(model);
+
+    if (componentElementTag == null) {
+      throw new IllegalStateException("no component element tag found in model " + model);
+    }
+
+    ComponentRenderer componentRenderer = componentRenderers.get(
+      componentElementTag.getElementDefinition().getElementName().getElementName());
+
+    if (componentRenderer == null || !namespace.isComponentTag(componentElementTag)) {
+      return;
+    }
+
+    try {
+      componentRenderer.render(context, model, structureHandler, componentElementTag);
+    } catch (TemplateProcessingException e) {
+      if (!e.hasTemplateName()) {
+        e.setTemplateName(componentElementTag.getTemplateName());
+      }
+
+      if (!e.hasLineAndCol()) {
+        e.setLineAndCol(componentElementTag.getLine(), componentElementTag.getCol());
+      }
+
+      throw e;
+    } catch (RuntimeException e) {
+      throw new TemplateProcessingException("Error during execution of processor '" + getClass().getName() + "'",
+        componentElementTag.getTemplateName(), componentElementTag.getLine(), componentElementTag.getCol(), e);
+    }
+  }
+}
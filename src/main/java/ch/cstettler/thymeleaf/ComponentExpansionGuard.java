@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import ch.cstettler.thymeleaf.ComponentChain.ExpandedEvents;
+import org.thymeleaf.context.ITemplateContext;
+
+/**
+ * Limits the expansion of the components of a dialect per rendering: the nesting depth of components, which stops
+ * components using themselves directly or through a slot, and the total number of events of all expanded component
+ * models. Both limits fail the rendering with the chain of components leading to the component exceeding it.
+ * <p>
+ * The nesting depth is tracked by the {@link ComponentChain} passed down as local variable. The expanded events are
+ * counted by a counter created when the first component of a rendering is expanded, kept per rendering context and
+ * passed down along the chains of nested components, and only if the number of expanded events is limited.
+ */
+final class ComponentExpansionGuard {
+
+  static final int DEFAULT_MAX_NESTING_DEPTH = 64;
+  static final long UNLIMITED = Long.MAX_VALUE;
+
+  private final int maxNestingDepth;
+  private final long maxExpandedEvents;
+  private final String chainVariableName;
+  private final StripedWeakMap<ITemplateContext, ExpandedEvents> expandedEventsPerRendering;
+
+  ComponentExpansionGuard(ComponentNamespace namespace, int maxNestingDepth, long maxExpandedEvents) {
+    this.maxNestingDepth = maxNestingDepth;
+    this.maxExpandedEvents = maxExpandedEvents;
+    this.chainVariableName = ComponentChain.class.getName() + "." + namespace.prefix();
+    this.expandedEventsPerRendering = new StripedWeakMap<>();
+  }
+
+  String chainVariableName() {
+    return chainVariableName;
+  }
+
+  /**
+   * Returns the component chain of the component about to be expanded, failing if it exceeds the maximum nesting depth.
+   */
+  ComponentChain enter(ITemplateContext context, String componentName) {
+    ComponentChain parent = (ComponentChain) context.getVariable(chainVariableName);
+    ExpandedEvents expandedEvents = parent != null ? parent.expandedEvents() : expandedEventsOf(context);
+    ComponentChain chain = new ComponentChain(parent, componentName, expandedEvents);
+
+    if (chain.depth() > maxNestingDepth) {
+      throw new IllegalStateException("component nesting depth exceeds the maximum of " + maxNestingDepth + ": " + chain);
+    }
+
+    return chain;
+  }
+
+  /**
+   * Counts the events of an expanded component model, failing if the events expanded by the rendering exceed the
+   * maximum.
+   */
+  void expanded(ComponentChain chain, int events) {
+    ExpandedEvents expandedEvents = chain.expandedEvents();
+
+    if (expandedEvents == null) {
+      return;
+    }
+
+    expandedEvents.count += events;
+
+    if (expandedEvents.count > maxExpandedEvents) {
+      throw new IllegalStateException("expanded component events exceed the maximum of " + maxExpandedEvents
+        + " per rendering: " + chain);
+    }
+  }
+
+  private ExpandedEvents expandedEventsOf(ITemplateContext context) {
+    if (maxExpandedEvents == UNLIMITED) {
+      return null;
+    }
+
+    // components at the top level of a rendering share the engine context of the rendering, which is discarded with it
+    ExpandedEvents expandedEvents = expandedEventsPerRendering.get(context);
+
+    if (expandedEvents == null) {
+      expandedEvents = new ExpandedEvents();
+      expandedEventsPerRendering.put(context, expandedEvents);
+    }
+
+    return expandedEvents;
+  }
+}
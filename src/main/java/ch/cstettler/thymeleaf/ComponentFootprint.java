@@ -0,0 +1,66 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+/**
+ * Snapshot of the memory held by the analysed fragments of a component. The fragment of a component template is held
+ * once per template version and template engine, as long as the template engine caches the template.
+ */
+public final class ComponentFootprint {
+
+  private final int templateVersions;
+  private final long fragmentEvents;
+  private final long fragmentCharacters;
+
+  ComponentFootprint(int templateVersions, long fragmentEvents, long fragmentCharacters) {
+    this.templateVersions = templateVersions;
+    this.fragmentEvents = fragmentEvents;
+    this.fragmentCharacters = fragmentCharacters;
+  }
+
+  /**
+   * Returns the number of analysed fragments currently held, one per template version and template engine.
+   *
+   * @return the number of analysed fragments
+   */
+  public int templateVersions() {
+    return templateVersions;
+  }
+
+  /**
+   * Returns the number of template events of all analysed fragments currently held.
+   *
+   * @return the number of template events
+   */
+  public long fragmentEvents() {
+    return fragmentEvents;
+  }
+
+  /**
+   * Returns the number of characters of the texts and attribute values of all analysed fragments currently held.
+   *
+   * @return the number of characters
+   */
+  public long fragmentCharacters() {
+    return fragmentCharacters;
+  }
+
+  @Override
+  public String toString() {
+    return "ComponentFootprint{templateVersions=" + templateVersions + ", fragmentEvents=" + fragmentEvents
+      + ", fragmentCharacters=" + fragmentCharacters + "}";
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.AttributeNames;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Element and attribute names of the components of a dialect prefix. All names are computed once per prefix, so that
+ * checking the template events while rendering neither builds strings nor looks up attribute names.
+ */
+final class ComponentNamespace {
+
+  private final String prefix;
+  private final String elementNamePrefix;
+  private final String slotElementName;
+  private final AttributeName slotAttributeName;
+  private final AttributeName slotNameAttributeName;
+  private final String streamedComponentAttributeName;
+
+  ComponentNamespace(String prefix) {
+    this.prefix = prefix;
+    this.elementNamePrefix = prefix + ":";
+    this.slotElementName = prefix + ":slot";
+    this.slotAttributeName = AttributeNames.forName(HTML, prefix, "slot");
+    this.slotNameAttributeName = AttributeNames.forName(HTML, prefix, "name");
+    this.streamedComponentAttributeName = prefix + ":" + StreamingComponentTemplateHandler.STREAMED_COMPONENT_ATTRIBUTE;
+  }
+
+  String prefix() {
+    return prefix;
+  }
+
+  String defaultTemplateName(String elementName) {
+    return prefix + "/" + elementName + "/" + elementName;
+  }
+
+  String streamedComponentAttributeName() {
+    return streamedComponentAttributeName;
+  }
+
+  /**
+   * Returns whether the element tag is written with the prefix followed by a colon, as opposed to e.g. web components
+   * named "pl-xyz", which thymeleaf treats as prefixed the same way.
+   */
+  boolean isComponentTag(IProcessableElementTag elementTag) {
+    return elementTag.getElementCompleteName().startsWith(elementNamePrefix);
+  }
+
+  boolean isSlot(ITemplateEvent templateEvent) {
+    return templateEvent instanceof IProcessableElementTag
+      && ((IProcessableElementTag) templateEvent).getElementCompleteName().equals(slotElementName);
+  }
+
+  boolean hasSlotAttribute(IProcessableElementTag elementTag) {
+    return elementTag.hasAttribute(slotAttributeName);
+  }
+
+  String slotAttributeValue(IProcessableElementTag elementTag) {
+    return elementTag.getAttributeValue(slotAttributeName);
+  }
+
+  boolean hasSlotNameAttribute(IProcessableElementTag elementTag) {
+    return elementTag.hasAttribute(slotNameAttributeName);
+  }
+
+  String slotNameAttributeValue(IProcessableElementTag elementTag) {
+    return elementTag.getAttributeValue(slotNameAttributeName);
+  }
+}
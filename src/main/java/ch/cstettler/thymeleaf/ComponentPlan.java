@@ -0,0 +1,283 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static ch.cstettler.thymeleaf.TemplateEvents.indexOfFirstOpenElementTagWithAttribute;
+import static ch.cstettler.thymeleaf.TemplateEvents.subTreeEnd;
+import static java.util.Arrays.copyOf;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.IText;
+
+/**
+ * Pre-analysed fragment of a component template. The fragment body is kept as a flat event array together with the
+ * start and end offsets (exclusive) of every slot in document order, so filling the slots is a single pass over the
+ * fragment body. Plans are immutable and shared between all renderings of the same template version, which is
+ * identified by the version id of the plan.
+ * <p>
+ * Malformed component templates are rejected when the plan is built: templates without {@code th:fragment} element,
+ * slots with an empty name and multiple slots with the same name.
+ */
+final class ComponentPlan {
+
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  private final long version;
+  private final ITemplateEvent[] fragmentEvents;
+  private final String[] slotNames;
+  private final int[] slotStarts;
+  private final int[] slotEnds;
+  private final int[] nextSlots;
+
+  private ComponentPlan(ITemplateEvent[] fragmentEvents, String[] slotNames, int[] slotStarts, int[] slotEnds) {
+    this.version = VERSIONS.incrementAndGet();
+    this.fragmentEvents = fragmentEvents;
+    this.slotNames = slotNames;
+    this.slotStarts = slotStarts;
+    this.slotEnds = slotEnds;
+    this.nextSlots = nextSlots(slotStarts, slotEnds);
+  }
+
+  static ComponentPlan of(TemplateModel fragmentModel, ComponentNamespace namespace) {
+    String templateName = fragmentModel.getTemplateData().getTemplate();
+    ITemplateEvent[] fragmentEvents = fragmentEvents(fragmentModel, templateName);
+
+    int slotCount = 0;
+    String[] slotNames = new String[4];
+    int[] slotStarts = new int[4];
+    int[] slotEnds = new int[4];
+
+    Deque<int[]> openSlots = new ArrayDeque<>();
+    int depth = 0;
+
+    for (int i = 0; i < fragmentEvents.length; i++) {
+      ITemplateEvent templateEvent = fragmentEvents[i];
+
+      if (namespace.isSlot(templateEvent)) {
+        if (slotCount == slotNames.length) {
+          slotNames = copyOf(slotNames, slotCount * 2);
+          slotStarts = copyOf(slotStarts, slotCount * 2);
+          slotEnds = copyOf(slotEnds, slotCount * 2);
+        }
+
+        slotNames[slotCount] = slotNameOf((IProcessableElementTag) templateEvent, namespace, templateName);
+
+        for (int j = 0; j < slotCount; j++) {
+          if (slotNames[j].equals(slotNames[slotCount])) {
+            throw new IllegalStateException("duplicate " + describe(slotNames[slotCount]) + " in component template '"
+              + templateName + "'");
+          }
+        }
+        slotStarts[slotCount] = i;
+        slotEnds[slotCount] = i + 1;
+
+        if (templateEvent instanceof IOpenElementTag) {
+          openSlots.push(new int[] {slotCount, depth});
+          depth++;
+        }
+
+        slotCount++;
+      } else if (templateEvent instanceof IOpenElementTag) {
+        depth++;
+      } else if (templateEvent instanceof ICloseElementTag) {
+        depth--;
+
+        if (!openSlots.isEmpty() && openSlots.peek()[1] == depth) {
+          slotEnds[openSlots.pop()[0]] = i + 1;
+        }
+      }
+    }
+
+    return new ComponentPlan(fragmentEvents, copyOf(slotNames, slotCount), copyOf(slotStarts, slotCount), copyOf(slotEnds, slotCount));
+  }
+
+  /**
+   * Returns the id of the template version the plan was built for, which is unique for all plans.
+   */
+  long version() {
+    return version;
+  }
+
+  /**
+   * Returns the number of template events of the fragment body.
+   */
+  int eventCount() {
+    return fragmentEvents.length;
+  }
+
+  /**
+   * Returns the number of characters of the texts and attribute values of the fragment body, which make up most of the
+   * memory held by the fragment events apart from the events themselves.
+   */
+  long characterCount() {
+    long characterCount = 0;
+
+    for (ITemplateEvent templateEvent : fragmentEvents) {
+      if (templateEvent instanceof IText) {
+        characterCount += ((IText) templateEvent).length();
+      } else if (templateEvent instanceof IProcessableElementTag) {
+        for (IAttribute attribute : ((IProcessableElementTag) templateEvent).getAllAttributes()) {
+          characterCount += attribute.getValue() != null ? attribute.getValue().length() : 0;
+        }
+      }
+    }
+
+    return characterCount;
+  }
+
+  /**
+   * Writes the fragment body to the target model, replacing every slot by its content or, if no content is provided for
+   * the slot, by its fallback content.
+   */
+  void writeTo(IModel target, SlotIndex slotContents) {
+    writeRange(target, 0, fragmentEvents.length, 0, slotContents);
+  }
+
+  /**
+   * Returns whether the fragment has the default slot as its only slot, so that it can be streamed as the events before
+   * the slot, the slot content and the events after the slot.
+   */
+  boolean hasOnlyDefaultSlot() {
+    return slotNames.length == 1 && ComponentModelProcessor.DEFAULT_SLOT_NAME.equals(slotNames[0]);
+  }
+
+  /**
+   * Wraps the default slot content of a component model in place by the fragment events before and after the default
+   * slot, replacing the component element tags by the given tags. The content events are neither copied nor moved
+   * except for being shifted within the model.
+   */
+  void wrapDefaultSlotContent(IModel componentModel, IModelFactory modelFactory, IOpenElementTag openElementTag, ICloseElementTag closeElementTag) {
+    IModel prefix = modelFactory.createModel();
+    streamPrefix(prefix::add);
+
+    IModel suffix = modelFactory.createModel();
+    streamSuffix(suffix::add);
+
+    componentModel.replace(componentModel.size() - 1, closeElementTag);
+    componentModel.insertModel(componentModel.size() - 1, suffix);
+    componentModel.replace(0, openElementTag);
+    componentModel.insertModel(1, prefix);
+  }
+
+  void streamPrefix(Consumer<ITemplateEvent> target) {
+    streamEvents(target, 0, slotStarts[0]);
+  }
+
+  void streamFallback(Consumer<ITemplateEvent> target) {
+    if (slotEnds[0] - slotStarts[0] > 1) {
+      streamEvents(target, slotStarts[0] + 1, slotEnds[0] - 1);
+    }
+  }
+
+  void streamSuffix(Consumer<ITemplateEvent> target) {
+    streamEvents(target, slotEnds[0], fragmentEvents.length);
+  }
+
+  private void writeRange(IModel target, int from, int to, int firstSlot, SlotIndex slotContents) {
+    int position = from;
+    int slot = firstSlot;
+
+    while (slot < slotNames.length && slotStarts[slot] < to) {
+      writeEvents(target, position, slotStarts[slot]);
+
+      if (slotContents.hasContent(slotNames[slot])) {
+        slotContents.writeContent(slotNames[slot], target);
+      } else if (slotEnds[slot] - slotStarts[slot] > 1) {
+        writeRange(target, slotStarts[slot] + 1, slotEnds[slot] - 1, slot + 1, slotContents);
+      }
+
+      position = slotEnds[slot];
+      slot = nextSlots[slot];
+    }
+
+    writeEvents(target, position, to);
+  }
+
+  private void writeEvents(IModel target, int from, int to) {
+    for (int i = from; i < to; i++) {
+      target.add(fragmentEvents[i]);
+    }
+  }
+
+  private void streamEvents(Consumer<ITemplateEvent> target, int from, int to) {
+    for (int i = from; i < to; i++) {
+      target.accept(fragmentEvents[i]);
+    }
+  }
+
+  private static ITemplateEvent[] fragmentEvents(IModel fragmentModel, String templateName) {
+    int fragmentStart = indexOfFirstOpenElementTagWithAttribute(fragmentModel, "th:fragment");
+
+    if (fragmentStart < 0) {
+      throw new IllegalStateException("component template '" + templateName + "' does not contain an element with th:fragment attribute");
+    }
+
+    int fragmentEnd = subTreeEnd(fragmentModel, fragmentStart);
+    ITemplateEvent[] fragmentEvents = new ITemplateEvent[Math.max(0, fragmentEnd - fragmentStart - 2)];
+
+    for (int i = 0; i < fragmentEvents.length; i++) {
+      fragmentEvents[i] = fragmentModel.get(fragmentStart + 1 + i);
+    }
+
+    return fragmentEvents;
+  }
+
+  private static int[] nextSlots(int[] slotStarts, int[] slotEnds) {
+    int[] nextSlots = new int[slotStarts.length];
+
+    for (int slot = 0; slot < slotStarts.length; slot++) {
+      int nextSlot = slot + 1;
+
+      while (nextSlot < slotStarts.length && slotStarts[nextSlot] < slotEnds[slot]) {
+        nextSlot++;
+      }
+
+      nextSlots[slot] = nextSlot;
+    }
+
+    return nextSlots;
+  }
+
+  private static String slotNameOf(IProcessableElementTag elementTag, ComponentNamespace namespace, String templateName) {
+    if (!namespace.hasSlotNameAttribute(elementTag)) {
+      return ComponentModelProcessor.DEFAULT_SLOT_NAME;
+    }
+
+    String slotName = namespace.slotNameAttributeValue(elementTag);
+
+    if (slotName == null || slotName.isBlank()) {
+      throw new IllegalStateException("slot with empty name in component template '" + templateName + "', line "
+        + elementTag.getLine() + ", column " + elementTag.getCol());
+    }
+
+    return slotName;
+  }
+
+  private static String describe(String slotName) {
+    return ComponentModelProcessor.DEFAULT_SLOT_NAME.equals(slotName) ? "default slot" : "slot '" + slotName + "'";
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.function.Function;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+
+/**
+ * Caches component plans per parsed template. Plans are keyed by the {@link TemplateData} of the parsed template model,
+ * which is shared by all models the {@link org.thymeleaf.engine.TemplateManager} returns for the same cache entry. As
+ * soon as the template cache entry is cleared or expires, the template is parsed again with new template data and the
+ * plan is rebuilt, while the outdated plan becomes eligible for garbage collection. The plan of the most recently used
+ * template version is looked up without any lock, as components are mostly rendered with the same template version.
+ */
+final class ComponentPlanCache {
+
+  private final StripedWeakMap<TemplateData, ComponentPlan> plans = new StripedWeakMap<>();
+  private volatile LatestPlan latestPlan;
+
+  List<ComponentPlan> plans() {
+    return plans.values();
+  }
+
+  ComponentPlan planFor(TemplateModel templateModel, Function<TemplateModel, ComponentPlan> planBuilder) {
+    TemplateData templateData = templateModel.getTemplateData();
+    LatestPlan latestPlan = this.latestPlan;
+
+    if (latestPlan != null && latestPlan.templateData.get() == templateData) {
+      return latestPlan.plan;
+    }
+
+    ComponentPlan plan = plans.get(templateData);
+
+    if (plan == null) {
+      plan = planBuilder.apply(templateModel);
+
+      if (!templateData.getValidity().isCacheable()) {
+        return plan;
+      }
+
+      plans.put(templateData, plan);
+    }
+
+    this.latestPlan = new LatestPlan(templateData, plan);
+
+    return plan;
+  }
+
+  private static final class LatestPlan {
+
+    private final WeakReference<TemplateData> templateData;
+    private final ComponentPlan plan;
+
+    private LatestPlan(TemplateData templateData, ComponentPlan plan) {
+      this.templateData = new WeakReference<>(templateData);
+      this.plan = plan;
+    }
+  }
+}
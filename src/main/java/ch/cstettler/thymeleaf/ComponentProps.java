@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.thymeleaf.context.ILazyContextVariable;
+
+/**
+ * Component attributes exposed as a single variable, e.g. {@code ${props.title}}. The attribute names are laid out
+ * once per component element tag and shared by all renderings, so a rendering only fills in the values. Read-only,
+ * resolving lazy values on access.
+ */
+final class ComponentProps extends AbstractMap<String, Object> {
+
+  static final String VARIABLE_NAME = "props";
+
+  private final String[] names;
+  private final Object[] values;
+
+  ComponentProps(String[] names, Object[] values) {
+    this.names = names;
+    this.values = values;
+  }
+
+  @Override
+  public Object get(Object name) {
+    int index = indexOf(name);
+
+    return index >= 0 ? valueAt(index) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object name) {
+    return indexOf(name) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return names.length;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<>() {
+
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return new Iterator<>() {
+
+          private int index;
+
+          @Override
+          public boolean hasNext() {
+            return index < names.length;
+          }
+
+          @Override
+          public Entry<String, Object> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+
+            Entry<String, Object> entry = new SimpleImmutableEntry<>(names[index], valueAt(index));
+            index++;
+
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return names.length;
+      }
+    };
+  }
+
+  private Object valueAt(int index) {
+    // lazy values are not resolved by the expression evaluators when read as map values
+    return values[index] instanceof ILazyContextVariable ? ((ILazyContextVariable<?>) values[index]).getValue() : values[index];
+  }
+
+  private int indexOf(Object name) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+/**
+ * Listener notified after each component rendering with the time spent in the individual rendering phases. Register
+ * a listener via {@link ComponentDialect#renderListener(ComponentRenderListener)}, e.g. an
+ * {@link InMemoryComponentMetrics} instance.
+ *
+ * <p>Listeners are called concurrently by all rendering threads and must therefore be thread-safe.</p>
+ */
+public interface ComponentRenderListener {
+
+  /**
+   * Listener ignoring all renderings. When this listener is registered, no timings are measured at all.
+   */
+  ComponentRenderListener NONE = (elementName, fragmentLoadingNanos, slotExtractionNanos, attributeResolutionNanos, mergingNanos, mergedModelSize) -> {
+  };
+
+  /**
+   * Called after a component has been expanded.
+   *
+   * @param elementName the name of the component element, without dialect prefix
+   * @param fragmentLoadingNanos the time spent loading the component fragment, in nanoseconds
+   * @param slotExtractionNanos the time spent extracting the slot contents, in nanoseconds
+   * @param attributeResolutionNanos the time spent resolving the component attributes, in nanoseconds
+   * @param mergingNanos the time spent merging fragment and slot contents, in nanoseconds
+   * @param mergedModelSize the number of template events of the merged model
+   */
+  void componentRendered(
+    String elementName,
+    long fragmentLoadingNanos,
+    long slotExtractionNanos,
+    long attributeResolutionNanos,
+    long mergingNanos,
+    int mergedModelSize
+  );
+}
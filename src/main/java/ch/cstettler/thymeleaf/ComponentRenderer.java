@@ -0,0 +1,425 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static ch.cstettler.thymeleaf.ComponentDefinition.Rendering.PURE;
+import static ch.cstettler.thymeleaf.ComponentDefinition.Rendering.STREAMING;
+import static ch.cstettler.thymeleaf.TemplateModels.templateModelOf;
+import static java.util.Arrays.asList;
+import static org.thymeleaf.model.AttributeValueQuotes.DOUBLE;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import ch.cstettler.thymeleaf.ComponentDefinition.Rendering;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.EngineContext;
+import org.thymeleaf.context.IEngineContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+import org.thymeleaf.standard.expression.IStandardExpressionParser;
+import org.thymeleaf.standard.expression.StandardExpressions;
+
+/**
+ * Renders a single component: resolves its attributes, loads its fragment plan and merges the slot contents of the
+ * component element into the fragment. Shared by the per-component and the dispatching processor.
+ */
+class ComponentRenderer {
+
+  private final ComponentNamespace namespace;
+  private final String elementName;
+  private final String elementCompleteName;
+  private final String templateName;
+  private final ComponentAttributes declaredAttributes;
+  private final Rendering rendering;
+  private final AttributeVariables attributeVariables;
+  private final boolean lazyAttributes;
+  private final AttributeExpressionCache expressionCache;
+  private final ComponentRenderListener renderListener;
+  private final ComponentTemplateCache templateCache;
+  private final ComponentPlanCache planCache;
+  private final PureComponentCache pureComponents;
+  private final ComponentExpansionGuard expansionGuard;
+  private final StripedWeakMap<IProcessableElementTag, AttributePartition> attributePartitions;
+
+  ComponentRenderer(ComponentNamespace namespace, ComponentDefinition componentDefinition, AttributeExpressionCache expressionCache,
+    ComponentRenderListener renderListener, PureComponentCache pureComponents, ComponentExpansionGuard expansionGuard,
+    AttributeVariables attributeVariables, boolean lazyAttributes) {
+    this.namespace = namespace;
+    this.elementName = componentDefinition.elementName();
+    this.elementCompleteName = namespace.prefix() + ":" + elementName;
+    this.templateName = componentDefinition.templatePath() != null
+      ? componentDefinition.templatePath()
+      : namespace.defaultTemplateName(elementName);
+    this.declaredAttributes = componentDefinition.declaredAttributes();
+    this.rendering = componentDefinition.rendering();
+    this.attributeVariables = attributeVariables;
+    this.lazyAttributes = lazyAttributes;
+    this.expressionCache = expressionCache;
+    this.renderListener = renderListener;
+    this.templateCache = new ComponentTemplateCache(templateName);
+    this.planCache = new ComponentPlanCache();
+    this.pureComponents = pureComponents;
+    this.expansionGuard = expansionGuard;
+    this.attributePartitions = new StripedWeakMap<>();
+  }
+
+  ComponentNamespace namespace() {
+    return namespace;
+  }
+
+  String elementName() {
+    return elementName;
+  }
+
+  String templateName() {
+    return templateName;
+  }
+
+  boolean streaming() {
+    return rendering == STREAMING;
+  }
+
+  ComponentFootprint footprint() {
+    List<ComponentPlan> plans = planCache.plans();
+    long fragmentEvents = 0;
+    long fragmentCharacters = 0;
+
+    for (ComponentPlan plan : plans) {
+      fragmentEvents += plan.eventCount();
+      fragmentCharacters += plan.characterCount();
+    }
+
+    return new ComponentFootprint(plans.size(), fragmentEvents, fragmentCharacters);
+  }
+
+  /**
+   * Parses the component template the same way the template engine parses page templates, so that it is cached
+   * independently of the pages using the component, and analyses it. Templates the template engine does not cache are
+   * parsed once more to be analysed, so that invalid templates are reported regardless of the cache settings.
+   */
+  void warmUp(ITemplateEngine templateEngine) {
+    IEngineConfiguration configuration = templateEngine.getConfiguration();
+    // the template engine sets the data of the component template on the engine context, which is kept as long as the
+    // throttled processing is not started
+    IEngineContext context = new EngineContext(configuration, null, null, Locale.getDefault(), null);
+    templateEngine.processThrottled(new TemplateSpec(templateName, HTML), context);
+
+    TemplateModel fragmentModel = templateCache.cachedTemplateModel(configuration, null);
+
+    if (fragmentModel == null) {
+      fragmentModel = templateCache.parseUncached(context);
+    }
+
+    planCache.planFor(fragmentModel, this::newPlan);
+  }
+
+  void render(
+    ITemplateContext context,
+    IModel model,
+    IElementModelStructureHandler structureHandler,
+    IProcessableElementTag componentElementTag
+  ) {
+    ComponentChain chain = expansionGuard.enter(context, elementCompleteName);
+
+    if (rendering == PURE && model.size() <= 2) {
+      // pure components without content, consisting of the component element tag(s) only
+      renderPure(context, model, componentElementTag, chain);
+    } else if (renderListener != ComponentRenderListener.NONE) {
+      renderMeasured(context, model, structureHandler, componentElementTag, chain);
+    } else {
+      structureHandler.setLocalVariable(expansionGuard.chainVariableName(), chain);
+      Map<String, Object> additionalAttributes = resolveAttributes(componentElementTag, context, structureHandler::setLocalVariable, lazyAttributes);
+      ComponentPlan plan = loadPlan(context);
+      SlotIndex slotContents = SlotIndex.of(model, namespace);
+      merge(context, model, plan, additionalAttributes, slotContents);
+    }
+
+    expansionGuard.expanded(chain, model.size());
+  }
+
+  /**
+   * Sets the attributes of a streamed component as local variables. The fragment itself is streamed around the slot
+   * content by the {@link StreamingComponentTemplateHandler}.
+   */
+  void renderStreamed(ITemplateContext context, IProcessableElementTag componentElementTag, IElementTagStructureHandler structureHandler) {
+    long start = System.nanoTime();
+    structureHandler.setLocalVariable(expansionGuard.chainVariableName(), expansionGuard.enter(context, elementCompleteName));
+    // the expanded element tag is created anew on each rendering, so its attribute partition is not cached
+    resolveAttributes(componentElementTag, context, structureHandler::setLocalVariable, lazyAttributes,
+      AttributePartition.of(componentElementTag, namespace.prefix(), declaredAttributes));
+
+    if (renderListener != ComponentRenderListener.NONE) {
+      renderListener.componentRendered(elementName, 0, 0, System.nanoTime() - start, 0, 0);
+    }
+  }
+
+  ComponentPlan streamingPlan(ITemplateContext context) {
+    ComponentPlan plan = loadPlan(context);
+
+    if (!plan.hasOnlyDefaultSlot()) {
+      throw new IllegalStateException("streaming component '" + elementName + "' requires template '" + templateName
+        + "' to define the default slot as its only slot");
+    }
+
+    return plan;
+  }
+
+  private void renderMeasured(
+    ITemplateContext context,
+    IModel model,
+    IElementModelStructureHandler structureHandler,
+    IProcessableElementTag componentElementTag,
+    ComponentChain chain
+  ) {
+    long start = System.nanoTime();
+    structureHandler.setLocalVariable(expansionGuard.chainVariableName(), chain);
+    Map<String, Object> additionalAttributes = resolveAttributes(componentElementTag, context, structureHandler::setLocalVariable, lazyAttributes);
+    long attributesResolved = System.nanoTime();
+    ComponentPlan plan = loadPlan(context);
+    long fragmentLoaded = System.nanoTime();
+    SlotIndex slotContents = SlotIndex.of(model, namespace);
+    long slotsExtracted = System.nanoTime();
+    merge(context, model, plan, additionalAttributes, slotContents);
+    long merged = System.nanoTime();
+
+    renderListener.componentRendered(
+      elementName,
+      fragmentLoaded - attributesResolved,
+      slotsExtracted - fragmentLoaded,
+      attributesResolved - start,
+      merged - slotsExtracted,
+      model.size()
+    );
+  }
+
+  private void renderPure(ITemplateContext context, IModel model, IProcessableElementTag componentElementTag, ComponentChain chain) {
+    long start = System.nanoTime();
+    Map<String, Object> componentAttributes = new HashMap<>();
+    // the output is cached per attribute values, so they are needed right away
+    Map<String, Object> additionalAttributes = resolveAttributes(componentElementTag, context, componentAttributes::put, false);
+    long attributesResolved = System.nanoTime();
+    ComponentPlan plan = loadPlan(context);
+    long fragmentLoaded = System.nanoTime();
+
+    // outputs are cached per template version, so outputs of outdated templates are not used anymore
+    List<Object> attributes = asList(context.getLocale(), componentAttributes, additionalAttributes);
+    String output = pureComponents.outputFor(plan, attributes);
+
+    if (output == null) {
+      IModel mergedModel = prepareModel(context, plan, additionalAttributes, SlotIndex.of(model, namespace));
+      output = renderToString(context, mergedModel, componentAttributes, expansionGuard.chainVariableName(), chain);
+      pureComponents.put(plan, attributes, output);
+    }
+
+    model.reset();
+    model.addModel(outputModel(context.getModelFactory(), output));
+
+    if (renderListener != ComponentRenderListener.NONE) {
+      renderListener.componentRendered(
+        elementName,
+        fragmentLoaded - attributesResolved,
+        0,
+        attributesResolved - start,
+        System.nanoTime() - fragmentLoaded,
+        model.size()
+      );
+    }
+  }
+
+  private static String renderToString(
+    ITemplateContext context,
+    IModel mergedModel,
+    Map<String, Object> componentAttributes,
+    String chainVariableName,
+    ComponentChain chain
+  ) {
+    if (!(context instanceof IEngineContext)) {
+      throw new IllegalStateException("cannot render pure component in context " + context);
+    }
+
+    IEngineContext engineContext = (IEngineContext) context;
+    TemplateManager templateManager = context.getConfiguration().getTemplateManager();
+    TemplateModel templateModel = templateModelOf(context.getConfiguration(), context.getTemplateData(), mergedModel);
+    StringWriter writer = new StringWriter();
+
+    engineContext.increaseLevel();
+
+    try {
+      componentAttributes.forEach(engineContext::setVariable);
+      engineContext.setVariable(chainVariableName, chain);
+      templateManager.process(templateModel, engineContext, writer);
+    } finally {
+      engineContext.decreaseLevel();
+    }
+
+    return writer.toString();
+  }
+
+  private static IModel outputModel(IModelFactory modelFactory, String output) {
+    IModel outputModel = modelFactory.createModel();
+
+    if (output.contains("[[") || output.contains("[(")) {
+      // prevent the rendered output from being inlined again
+      outputModel.add(modelFactory.createOpenElementTag("th:block", "th:inline", "none"));
+      outputModel.add(modelFactory.createText(output));
+      outputModel.add(modelFactory.createCloseElementTag("th:block"));
+    } else {
+      outputModel.add(modelFactory.createText(output));
+    }
+
+    return outputModel;
+  }
+
+  private Map<String, Object> resolveAttributes(
+    IProcessableElementTag componentElementTag,
+    ITemplateContext context,
+    BiConsumer<String, Object> localVariables,
+    boolean lazy
+  ) {
+    return resolveAttributes(componentElementTag, context, localVariables, lazy, attributePartitionOf(componentElementTag, context));
+  }
+
+  private Map<String, Object> resolveAttributes(
+    IProcessableElementTag componentElementTag,
+    ITemplateContext context,
+    BiConsumer<String, Object> localVariables,
+    boolean lazy,
+    AttributePartition attributePartition
+  ) {
+    IStandardExpressionParser expressionParser = StandardExpressions.getExpressionParser(context.getConfiguration());
+    Function<String, Object> valueResolver = value -> expressionCache.resolve(value, context, expressionParser);
+    IAttribute[] attributes = componentElementTag.getAllAttributes();
+
+    Function<String, Object> componentValueResolver = lazy
+      ? lazyValueResolver(context, expressionParser)
+      : valueResolver;
+
+    if (attributeVariables == AttributeVariables.PROPS) {
+      localVariables.accept(ComponentProps.VARIABLE_NAME, attributePartition.resolveProps(attributes, componentValueResolver, lazy));
+    } else {
+      attributePartition.resolveComponentAttributes(attributes, componentValueResolver, lazy, localVariables);
+    }
+
+    // additional attributes are written to the expanded model right away
+    return attributePartition.resolveAdditionalAttributes(attributes, valueResolver);
+  }
+
+  private Function<String, Object> lazyValueResolver(ITemplateContext context, IStandardExpressionParser expressionParser) {
+    // lazy values are evaluated within the component, where variables of the component template (e.g. th:each or
+    // th:with) hide those of the usage position, so the variables of the usage position are captured right away
+    ITemplateContext usageContext = ComponentUsageContext.of(context);
+
+    return value -> expressionCache.resolve(value, usageContext, expressionParser);
+  }
+
+  private AttributePartition attributePartitionOf(IProcessableElementTag componentElementTag, ITemplateContext context) {
+    AttributePartition attributePartition = attributePartitions.get(componentElementTag);
+
+    if (attributePartition == null) {
+      attributePartition = AttributePartition.of(componentElementTag, namespace.prefix(), declaredAttributes);
+
+      // element tags of templates that are not cached are not rendered again
+      if (context.getTemplateData().getValidity().isCacheable()) {
+        attributePartitions.put(componentElementTag, attributePartition);
+      }
+    }
+
+    return attributePartition;
+  }
+
+  private void merge(
+    ITemplateContext context,
+    IModel model,
+    ComponentPlan plan,
+    Map<String, Object> additionalAttributes,
+    SlotIndex slotContents
+  ) {
+    if (plan.hasOnlyDefaultSlot() && slotContents.hasDefaultContentOnly()) {
+      // content passed through to the only slot is kept in place instead of being copied to a new model, which also
+      // applies to slot contents forwarded from component to component
+      IModelFactory modelFactory = context.getModelFactory();
+      plan.wrapDefaultSlotContent(model, modelFactory, blockOpenElement(modelFactory, additionalAttributes), blockCloseElement(modelFactory));
+      return;
+    }
+
+    IModel mergedModel = prepareModel(context, plan, additionalAttributes, slotContents);
+
+    model.reset();
+    model.addModel(mergedModel);
+  }
+
+  private ComponentPlan loadPlan(ITemplateContext context) {
+    TemplateModel fragmentModel = templateCache.templateModel(context);
+
+    return planCache.planFor(fragmentModel, this::newPlan);
+  }
+
+  private ComponentPlan newPlan(TemplateModel fragmentModel) {
+    ComponentPlan plan = ComponentPlan.of(fragmentModel, namespace);
+
+    if (rendering == PURE) {
+      pureComponents.discardOutputsWith(plan);
+    }
+
+    return plan;
+  }
+
+  private IModel prepareModel(
+    ITemplateContext context,
+    ComponentPlan plan,
+    Map<String, Object> additionalAttributes,
+    SlotIndex slotContents
+  ) {
+    IModelFactory modelFactory = context.getModelFactory();
+    IModel newModel = modelFactory.createModel();
+
+    newModel.add(blockOpenElement(modelFactory, additionalAttributes));
+
+    plan.writeTo(newModel, slotContents);
+
+    newModel.add(blockCloseElement(modelFactory));
+
+    return newModel;
+  }
+
+  private static IOpenElementTag blockOpenElement(IModelFactory modelFactory, Map<String, Object> attributes) {
+    Map<String, String> attributesMap = new HashMap<>();
+    attributes.forEach((key, value) -> attributesMap.put(key, value != null ? value.toString() : null));
+
+    return modelFactory.createOpenElementTag("th:block", attributesMap, DOUBLE, false);
+  }
+
+  private static ICloseElementTag blockCloseElement(IModelFactory modelFactory) {
+    return modelFactory.createCloseElementTag("th:block");
+  }
+}
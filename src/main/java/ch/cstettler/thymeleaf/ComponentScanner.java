@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Discovers component templates on the class path. A component named {@code xyz} is discovered below a class path
+ * location if the location contains the template {@code xyz/xyz.html}, both in directories and in jar files.
+ */
+final class ComponentScanner {
+
+  private static final String TEMPLATE_SUFFIX = ".html";
+
+  private ComponentScanner() {
+  }
+
+  static Set<String> componentNamesIn(ClassLoader classLoader, String location) {
+    String normalizedLocation = normalize(location);
+    Set<String> componentNames = new TreeSet<>();
+
+    try {
+      Enumeration<URL> urls = classLoader.getResources(normalizedLocation);
+
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+
+        if ("file".equals(url.getProtocol())) {
+          scanDirectory(Paths.get(url.toURI()), componentNames);
+        } else if ("jar".equals(url.getProtocol())) {
+          scanJar(url, normalizedLocation, componentNames);
+        }
+      }
+    } catch (IOException | URISyntaxException e) {
+      throw new IllegalStateException("cannot scan components in '" + location + "'", e);
+    }
+
+    return componentNames;
+  }
+
+  private static void scanDirectory(Path directory, Set<String> componentNames) throws IOException {
+    try (Stream<Path> componentDirectories = Files.list(directory)) {
+      componentDirectories
+        .filter(Files::isDirectory)
+        .filter(componentDirectory -> Files.isRegularFile(componentDirectory.resolve(componentDirectory.getFileName() + TEMPLATE_SUFFIX)))
+        .forEach(componentDirectory -> componentNames.add(componentDirectory.getFileName().toString()));
+    }
+  }
+
+  private static void scanJar(URL url, String location, Set<String> componentNames) throws IOException {
+    JarURLConnection connection = (JarURLConnection) url.openConnection();
+    connection.setUseCaches(false);
+    String prefix = location + "/";
+
+    try (JarFile jarFile = connection.getJarFile()) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+
+      while (entries.hasMoreElements()) {
+        String entryName = entries.nextElement().getName();
+
+        if (entryName.startsWith(prefix) && entryName.endsWith(TEMPLATE_SUFFIX)) {
+          String[] segments = entryName.substring(prefix.length()).split("/");
+
+          if (segments.length == 2 && segments[1].equals(segments[0] + TEMPLATE_SUFFIX)) {
+            componentNames.add(segments[0]);
+          }
+        }
+      }
+    }
+  }
+
+  private static String normalize(String location) {
+    String normalizedLocation = location.startsWith("/") ? location.substring(1) : location;
+
+    return normalizedLocation.endsWith("/") ? normalizedLocation.substring(0, normalizedLocation.length() - 1) : normalizedLocation;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.lang.Boolean.TRUE;
+import static java.util.Collections.emptySet;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import java.util.Map;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.ICacheManager;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+
+/**
+ * Keeps the parsed template of a component in the template cache of the template engine once for all pages using it,
+ * under the same key the template engine uses for the template processed on its own (e.g. when warmed up). Clearing
+ * the template cache for the component template or the expiry of its cache entry therefore also applies to components.
+ * <p>
+ * Relies on the cache keys built by the {@link TemplateManager} of Thymeleaf 3.1: templates processed on their own are
+ * cached without owner template, templates parsed via {@link TemplateManager#parseStandalone} with the template being
+ * processed as owner template, both without selectors and line and column offsets. The template is parsed at most once
+ * at a time per component, so that concurrent first renderings do not parse and cache several versions of it.
+ * Templates the template manager does not cache are remembered per engine configuration, as the same component dialect
+ * may be registered with several template engines with different template resolvers.
+ */
+final class ComponentTemplateCache {
+
+  private final String templateName;
+  private final Object parseLock;
+  private final StripedWeakMap<IEngineConfiguration, Boolean> uncacheable;
+
+  ComponentTemplateCache(String templateName) {
+    this.templateName = templateName;
+    this.parseLock = new Object();
+    this.uncacheable = new StripedWeakMap<>();
+  }
+
+  TemplateModel cachedTemplateModel(IEngineConfiguration configuration, Map<String, Object> templateResolutionAttributes) {
+    ICache<TemplateCacheKey, TemplateModel> templateCache = templateCacheOf(configuration);
+
+    return templateCache != null ? templateCache.get(standaloneCacheKey(templateResolutionAttributes)) : null;
+  }
+
+  TemplateModel templateModel(ITemplateContext context) {
+    TemplateModel templateModel = cachedTemplateModel(context.getConfiguration(), context.getTemplateResolutionAttributes());
+
+    return templateModel != null ? templateModel : parseTemplateModel(context);
+  }
+
+  /**
+   * Parses the template without looking it up in or adding it to the template cache, e.g. to analyse a template the
+   * template engine does not cache.
+   */
+  TemplateModel parseUncached(ITemplateContext context) {
+    return context.getConfiguration().getTemplateManager().parseStandalone(context, templateName, emptySet(), HTML, false, true);
+  }
+
+  private TemplateModel parseTemplateModel(ITemplateContext context) {
+    ICache<TemplateCacheKey, TemplateModel> templateCache = templateCacheOf(context.getConfiguration());
+
+    if (templateCache == null || uncacheable.get(context.getConfiguration()) != null) {
+      // the template manager does not cache the template, so it is parsed again on each rendering anyway
+      return parseStandalone(context);
+    }
+
+    synchronized (parseLock) {
+      TemplateCacheKey standaloneCacheKey = standaloneCacheKey(context.getTemplateResolutionAttributes());
+      TemplateModel cachedTemplateModel = templateCache.get(standaloneCacheKey);
+
+      if (cachedTemplateModel != null) {
+        // parsed by another rendering in the meantime
+        return cachedTemplateModel;
+      }
+
+      // the template manager caches the template per page template using it, which is kept when the cache is cleared for
+      // the component template, so make sure the template is parsed again
+      TemplateCacheKey ownedCacheKey = ownedCacheKey(context);
+      templateCache.clearKey(ownedCacheKey);
+
+      TemplateModel templateModel = parseStandalone(context);
+      TemplateModel ownedTemplateModel = templateCache.get(ownedCacheKey);
+
+      if (ownedTemplateModel != null) {
+        templateCache.put(standaloneCacheKey, ownedTemplateModel);
+        templateCache.clearKey(ownedCacheKey);
+      } else if (!templateModel.getTemplateData().getValidity().isCacheable()) {
+        uncacheable.put(context.getConfiguration(), TRUE);
+      }
+
+      return templateModel;
+    }
+  }
+
+  private TemplateModel parseStandalone(ITemplateContext context) {
+    return context.getConfiguration().getTemplateManager().parseStandalone(context, templateName, emptySet(), HTML, true, true);
+  }
+
+  TemplateCacheKey standaloneCacheKey(Map<String, Object> templateResolutionAttributes) {
+    return new TemplateCacheKey(null, templateName, null, 0, 0, HTML, templateResolutionAttributes);
+  }
+
+  TemplateCacheKey ownedCacheKey(ITemplateContext context) {
+    return new TemplateCacheKey(
+      context.getTemplateData().getTemplate(), templateName, null, 0, 0, HTML, context.getTemplateResolutionAttributes());
+  }
+
+  private static ICache<TemplateCacheKey, TemplateModel> templateCacheOf(IEngineConfiguration configuration) {
+    ICacheManager cacheManager = configuration.getCacheManager();
+
+    return cacheManager != null ? cacheManager.getTemplateCache() : null;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IdentifierSequences;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.expression.IExpressionObjects;
+import org.thymeleaf.inline.IInliner;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * View of the template context at the position a component is used, for evaluating its attribute values lazily
+ * within the component. All variables and the selection target of the usage position are captured when the component
+ * is rendered, so that the attribute values see the values of the usage position even if the component template
+ * defines variables of the same name. As the template context only returns resolved values, lazy context variables
+ * ({@link org.thymeleaf.context.ILazyContextVariable}) of the usage position are resolved when captured.
+ */
+final class ComponentUsageContext implements ITemplateContext {
+
+  private final ITemplateContext context;
+  private final Map<String, Object> capturedVariables;
+  private final boolean hasSelectionTarget;
+  private final Object selectionTarget;
+
+  private ComponentUsageContext(ITemplateContext context, Map<String, Object> capturedVariables) {
+    this.context = context;
+    this.capturedVariables = capturedVariables;
+    this.hasSelectionTarget = context.hasSelectionTarget();
+    this.selectionTarget = hasSelectionTarget ? context.getSelectionTarget() : null;
+  }
+
+  static ComponentUsageContext of(ITemplateContext context) {
+    Map<String, Object> capturedVariables = new HashMap<>();
+
+    for (String variableName : context.getVariableNames()) {
+      capturedVariables.put(variableName, context.getVariable(variableName));
+    }
+
+    return new ComponentUsageContext(context, capturedVariables);
+  }
+
+  @Override
+  public boolean containsVariable(String name) {
+    return capturedVariables.containsKey(name);
+  }
+
+  @Override
+  public Set<String> getVariableNames() {
+    return unmodifiableSet(capturedVariables.keySet());
+  }
+
+  @Override
+  public Object getVariable(String name) {
+    return capturedVariables.get(name);
+  }
+
+  @Override
+  public boolean hasSelectionTarget() {
+    return hasSelectionTarget;
+  }
+
+  @Override
+  public Object getSelectionTarget() {
+    return selectionTarget;
+  }
+
+  @Override
+  public TemplateData getTemplateData() {
+    return context.getTemplateData();
+  }
+
+  @Override
+  public TemplateMode getTemplateMode() {
+    return context.getTemplateMode();
+  }
+
+  @Override
+  public List<TemplateData> getTemplateStack() {
+    return context.getTemplateStack();
+  }
+
+  @Override
+  public List<IProcessableElementTag> getElementStack() {
+    return context.getElementStack();
+  }
+
+  @Override
+  public Map<String, Object> getTemplateResolutionAttributes() {
+    return context.getTemplateResolutionAttributes();
+  }
+
+  @Override
+  public IModelFactory getModelFactory() {
+    return context.getModelFactory();
+  }
+
+  @Override
+  public IInliner getInliner() {
+    return context.getInliner();
+  }
+
+  @Override
+  public String getMessage(Class<?> origin, String key, Object[] messageParameters, boolean useAbsentMessageRepresentation) {
+    return context.getMessage(origin, key, messageParameters, useAbsentMessageRepresentation);
+  }
+
+  @Override
+  public String buildLink(String base, Map<String, Object> parameters) {
+    return context.buildLink(base, parameters);
+  }
+
+  @Override
+  public IdentifierSequences getIdentifierSequences() {
+    return context.getIdentifierSequences();
+  }
+
+  @Override
+  public IEngineConfiguration getConfiguration() {
+    return context.getConfiguration();
+  }
+
+  @Override
+  public IExpressionObjects getExpressionObjects() {
+    return context.getExpressionObjects();
+  }
+
+  @Override
+  public Locale getLocale() {
+    return context.getLocale();
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of warming up the components of a {@link ComponentDialect}: the components whose templates have been loaded
+ * and analysed, and the failures of all other components, by component element name.
+ */
+public final class ComponentWarmUpResult {
+
+  private final List<String> warmedUpComponents;
+  private final Map<String, Throwable> failures;
+
+  ComponentWarmUpResult(List<String> warmedUpComponents, Map<String, Throwable> failures) {
+    this.warmedUpComponents = unmodifiableList(warmedUpComponents);
+    this.failures = unmodifiableMap(failures);
+  }
+
+  /**
+   * Returns the element names of the components warmed up successfully.
+   *
+   * @return the element names of the warmed up components, without dialect prefix
+   */
+  public List<String> warmedUpComponents() {
+    return warmedUpComponents;
+  }
+
+  /**
+   * Returns the failures of the components that could not be warmed up, e.g. because their template does not exist.
+   *
+   * @return the failures by component element name, without dialect prefix
+   */
+  public Map<String, Throwable> failures() {
+    return failures;
+  }
+
+  /**
+   * Returns whether all components have been warmed up successfully.
+   *
+   * @return {@code true} if no component failed, {@code false} otherwise
+   */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "ComponentWarmUpResult{warmedUpComponents=" + warmedUpComponents.size() + ", failures=" + failures + "}";
+  }
+}
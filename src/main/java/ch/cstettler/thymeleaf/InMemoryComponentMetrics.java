@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Render listener collecting the component rendering timings per component in memory, as histograms with power of two
+ * buckets. The collected metrics can be exposed to any monitoring system via {@link #metrics()}.
+ */
+public class InMemoryComponentMetrics implements ComponentRenderListener {
+
+  private final Map<String, ComponentMetrics> metrics = new ConcurrentHashMap<>();
+
+  @Override
+  public void componentRendered(
+    String elementName,
+    long fragmentLoadingNanos,
+    long slotExtractionNanos,
+    long attributeResolutionNanos,
+    long mergingNanos,
+    int mergedModelSize
+  ) {
+    ComponentMetrics componentMetrics = metrics.computeIfAbsent(elementName, (name) -> new ComponentMetrics());
+    componentMetrics.fragmentLoading.record(fragmentLoadingNanos);
+    componentMetrics.slotExtraction.record(slotExtractionNanos);
+    componentMetrics.attributeResolution.record(attributeResolutionNanos);
+    componentMetrics.merging.record(mergingNanos);
+    componentMetrics.mergedModelSize.record(mergedModelSize);
+  }
+
+  /**
+   * Returns the metrics collected so far, by component element name.
+   *
+   * @return the metrics by component element name
+   */
+  public Map<String, ComponentMetrics> metrics() {
+    return unmodifiableMap(metrics);
+  }
+
+  /**
+   * Returns the metrics collected so far for a component.
+   *
+   * @param elementName the component element name, without dialect prefix
+   * @return the metrics of the component, or {@code null} if the component has not been rendered yet
+   */
+  public ComponentMetrics metricsFor(String elementName) {
+    return metrics.get(elementName);
+  }
+
+  /**
+   * Clears all metrics collected so far.
+   */
+  public void reset() {
+    metrics.clear();
+  }
+
+  /**
+   * Metrics of a single component.
+   */
+  public static final class ComponentMetrics {
+
+    private final Histogram fragmentLoading = new Histogram();
+    private final Histogram slotExtraction = new Histogram();
+    private final Histogram attributeResolution = new Histogram();
+    private final Histogram merging = new Histogram();
+    private final Histogram mergedModelSize = new Histogram();
+
+    private ComponentMetrics() {
+    }
+
+    /**
+     * @return the number of renderings of the component
+     */
+    public long invocations() {
+      return merging.count();
+    }
+
+    /**
+     * @return the time spent loading the component fragment, in nanoseconds
+     */
+    public Histogram fragmentLoading() {
+      return fragmentLoading;
+    }
+
+    /**
+     * @return the time spent extracting the slot contents, in nanoseconds
+     */
+    public Histogram slotExtraction() {
+      return slotExtraction;
+    }
+
+    /**
+     * @return the time spent resolving the component attributes, in nanoseconds
+     */
+    public Histogram attributeResolution() {
+      return attributeResolution;
+    }
+
+    /**
+     * @return the time spent merging fragment and slot contents, in nanoseconds
+     */
+    public Histogram merging() {
+      return merging;
+    }
+
+    /**
+     * @return the number of template events of the merged models
+     */
+    public Histogram mergedModelSize() {
+      return mergedModelSize;
+    }
+  }
+
+  /**
+   * Lock-free histogram of non-negative values, counting values in buckets with power of two upper bounds.
+   */
+  public static final class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Histogram() {
+    }
+
+    void record(long value) {
+      long nonNegativeValue = Math.max(value, 0);
+
+      buckets.incrementAndGet(bucketOf(nonNegativeValue));
+      count.increment();
+      total.add(nonNegativeValue);
+      max.accumulate(nonNegativeValue);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long count() {
+      return count.sum();
+    }
+
+    /**
+     * @return the sum of all recorded values
+     */
+    public long total() {
+      return total.sum();
+    }
+
+    /**
+     * @return the largest recorded value
+     */
+    public long max() {
+      return max.get();
+    }
+
+    /**
+     * @return the mean of all recorded values, or {@code 0} if no value has been recorded
+     */
+    public double mean() {
+      long count = count();
+
+      return count > 0 ? (double) total() / count : 0;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile, accurate to the next power of two.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the upper bound of the percentile, or {@code 0} if no value has been recorded
+     */
+    public long percentile(double percentile) {
+      long[] counts = new long[BUCKETS];
+      long count = 0;
+
+      for (int i = 0; i < BUCKETS; i++) {
+        counts[i] = buckets.get(i);
+        count += counts[i];
+      }
+
+      long threshold = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += counts[i];
+
+        if (seen >= threshold && seen > 0) {
+          return Math.min(upperBoundOf(i), max());
+        }
+      }
+
+      return 0;
+    }
+
+    private static int bucketOf(long value) {
+      return value == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long upperBoundOf(int bucket) {
+      return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.util.function.Supplier;
+import org.thymeleaf.context.ILazyContextVariable;
+
+/**
+ * Component attribute value evaluated on first access and memoised for the rest of the component rendering. A
+ * rendering is processed by a single thread at a time, so the value is not synchronized.
+ */
+final class LazyAttributeValue implements ILazyContextVariable<Object> {
+
+  private Supplier<Object> valueSupplier;
+  private Object value;
+  private boolean evaluating;
+
+  LazyAttributeValue(Supplier<Object> valueSupplier) {
+    this.valueSupplier = valueSupplier;
+  }
+
+  @Override
+  public Object getValue() {
+    if (valueSupplier != null) {
+      if (evaluating) {
+        throw new IllegalStateException("component attribute value depends on itself");
+      }
+
+      evaluating = true;
+
+      try {
+        value = valueSupplier.get();
+        valueSupplier = null;
+      } finally {
+        evaluating = false;
+      }
+    }
+
+    return value;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Arrays.sort;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache evicting the least recently used entries first. Lookups do not lock: each entry is stamped with the
+ * value of a clock advancing on every new entry when accessed, and once the cache exceeds its size, the thread adding
+ * an entry evicts the entries with the oldest stamps in a batch, so the eviction order is only approximately the least
+ * recently used one.
+ */
+final class LeastRecentlyUsedCache<K, V> {
+
+  private final int maxSize;
+  private final int evictedSize;
+  private final Map<K, Entry<V>> entries;
+  private final AtomicLong clock;
+  private final ReentrantLock evictionLock;
+
+  LeastRecentlyUsedCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.evictedSize = maxSize - maxSize / 10;
+    this.entries = new ConcurrentHashMap<>();
+    this.clock = new AtomicLong();
+    this.evictionLock = new ReentrantLock();
+  }
+
+  V get(K key) {
+    Entry<V> entry = entries.get(key);
+
+    if (entry == null) {
+      return null;
+    }
+
+    entry.accessed(clock.get());
+
+    return entry.value;
+  }
+
+  void put(K key, V value) {
+    entries.put(key, new Entry<>(value, clock.incrementAndGet()));
+
+    if (entries.size() > maxSize && evictionLock.tryLock()) {
+      try {
+        evictLeastRecentlyUsed();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  void removeIf(Predicate<K> predicate) {
+    entries.keySet().removeIf(predicate);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void evictLeastRecentlyUsed() {
+    long[] lastAccesses = entries.values().stream().mapToLong(entry -> entry.lastAccess).toArray();
+    int evictions = lastAccesses.length - evictedSize;
+
+    if (evictions <= 0) {
+      return;
+    }
+
+    sort(lastAccesses);
+    long evictedLastAccess = lastAccesses[evictions - 1];
+
+    entries.values().removeIf(entry -> entry.lastAccess <= evictedLastAccess);
+  }
+
+  private static final class Entry<V> {
+
+    private final V value;
+    private volatile long lastAccess;
+
+    private Entry(V value, long lastAccess) {
+      this.value = value;
+      this.lastAccess = lastAccess;
+    }
+
+    private void accessed(long now) {
+      // skips the write for entries accessed repeatedly before the clock advances
+      if (lastAccess != now) {
+        lastAccess = now;
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.lang.ref.Cleaner;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the rendered output of pure component usages, evicting the least recently used outputs first
+ * without locking lookups (see {@link LeastRecentlyUsedCache}), and counting its hits and misses.
+ * <p>
+ * Outputs are keyed by the version id of the component plan they were rendered with instead of the plan itself, so
+ * that the cache does not keep outdated template versions alive. Once the plan of an outdated template version has
+ * been garbage collected, all outputs rendered with it are discarded.
+ */
+final class PureComponentCache {
+
+  static final int DEFAULT_MAX_SIZE = 1_000;
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final LeastRecentlyUsedCache<OutputKey, String> outputs;
+  private final LongAdder hits;
+  private final LongAdder misses;
+
+  PureComponentCache(int maxSize) {
+    this.outputs = new LeastRecentlyUsedCache<>(maxSize);
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+  }
+
+  /**
+   * Discards all outputs rendered with the given plan as soon as the plan has been garbage collected.
+   */
+  void discardOutputsWith(ComponentPlan plan) {
+    long version = plan.version();
+
+    CLEANER.register(plan, () -> outputs.removeIf(key -> key.version == version));
+  }
+
+  String outputFor(ComponentPlan plan, Object attributes) {
+    String output = outputs.get(new OutputKey(plan.version(), attributes));
+
+    if (output == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+
+    return output;
+  }
+
+  void put(ComponentPlan plan, Object attributes, String output) {
+    outputs.put(new OutputKey(plan.version(), attributes), output);
+  }
+
+  PureComponentCacheStatistics statistics() {
+    return new PureComponentCacheStatistics(hits.sum(), misses.sum(), outputs.size());
+  }
+
+  private static final class OutputKey {
+
+    private final long version;
+    private final Object attributes;
+
+    private OutputKey(long version, Object attributes) {
+      this.version = version;
+      this.attributes = attributes;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+
+      if (!(other instanceof OutputKey)) {
+        return false;
+      }
+
+      OutputKey otherKey = (OutputKey) other;
+
+      return version == otherKey.version && attributes.equals(otherKey.attributes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(version, attributes);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+/**
+ * Snapshot of the hit and miss counts and the current size of the rendered output cache of pure components.
+ */
+public final class PureComponentCacheStatistics {
+
+  private final long hits;
+  private final long misses;
+  private final int size;
+
+  PureComponentCacheStatistics(long hits, long misses, int size) {
+    this.hits = hits;
+    this.misses = misses;
+    this.size = size;
+  }
+
+  /**
+   * Returns the number of pure component usages rendered from the cache.
+   *
+   * @return the number of cache hits
+   */
+  public long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of pure component usages rendered because their output was not cached yet.
+   *
+   * @return the number of cache misses
+   */
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of rendered outputs currently cached.
+   *
+   * @return the number of cached outputs
+   */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "PureComponentCacheStatistics{hits=" + hits + ", misses=" + misses + ", size=" + size + "}";
+  }
+}
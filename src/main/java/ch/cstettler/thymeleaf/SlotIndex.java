@@ -0,0 +1,206 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static ch.cstettler.thymeleaf.TemplateEvents.indexOfFirstOpenOrStandaloneElementTag;
+import static ch.cstettler.thymeleaf.TemplateEvents.subTreeEnd;
+import static java.util.Arrays.copyOf;
+
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Index of the slot contents passed to a component, built in a single pass over the component model. Named slot
+ * contents are kept as start and end offsets (exclusive) into the component model, the default slot content as the
+ * list of ranges in between. Slot contents of nested components are not indexed but left to the nested component.
+ */
+final class SlotIndex {
+
+  private static final int[] NO_OFFSETS = new int[0];
+
+  private final IModel model;
+  private final String[] names;
+  private final int[] starts;
+  private final int[] ends;
+  private final int[] defaultStarts;
+  private final int[] defaultEnds;
+
+  private SlotIndex(IModel model, String[] names, int[] starts, int[] ends, int[] defaultStarts, int[] defaultEnds) {
+    this.model = model;
+    this.names = names;
+    this.starts = starts;
+    this.ends = ends;
+    this.defaultStarts = defaultStarts;
+    this.defaultEnds = defaultEnds;
+  }
+
+  static SlotIndex of(IModel model, ComponentNamespace namespace) {
+    int componentStart = indexOfFirstOpenOrStandaloneElementTag(model);
+
+    if (componentStart < 0 || !(model.get(componentStart) instanceof IOpenElementTag)) {
+      return new SlotIndex(model, new String[0], NO_OFFSETS, NO_OFFSETS, NO_OFFSETS, NO_OFFSETS);
+    }
+
+    int count = 0;
+    String[] names = new String[4];
+    int[] starts = new int[4];
+    int[] ends = new int[4];
+
+    int defaultCount = 0;
+    int[] defaultStarts = new int[4];
+    int[] defaultEnds = new int[4];
+
+    int defaultStart = componentStart + 1;
+    int depth = 0;
+    int i = componentStart + 1;
+
+    while (i < model.size()) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (templateEvent instanceof ICloseElementTag && depth == 0) {
+        break;
+      }
+
+      if (templateEvent instanceof IProcessableElementTag) {
+        IProcessableElementTag elementTag = (IProcessableElementTag) templateEvent;
+
+        if (namespace.hasSlotAttribute(elementTag)) {
+          String slotName = namespace.slotAttributeValue(elementTag);
+
+          for (int j = 0; j < count; j++) {
+            if (names[j].equals(slotName)) {
+              throw new IllegalStateException("duplicate slot definition '" + slotName + "'");
+            }
+          }
+
+          if (count == names.length) {
+            names = copyOf(names, count * 2);
+            starts = copyOf(starts, count * 2);
+            ends = copyOf(ends, count * 2);
+          }
+
+          if (defaultCount == defaultStarts.length) {
+            defaultStarts = copyOf(defaultStarts, defaultCount * 2);
+            defaultEnds = copyOf(defaultEnds, defaultCount * 2);
+          }
+
+          int end = subTreeEnd(model, i);
+
+          names[count] = slotName;
+          starts[count] = i;
+          ends[count] = end;
+          count++;
+
+          defaultStarts[defaultCount] = defaultStart;
+          defaultEnds[defaultCount] = i;
+          defaultCount++;
+
+          defaultStart = end;
+          i = end;
+          continue;
+        }
+
+        if (elementTag instanceof IOpenElementTag && namespace.isComponentTag(elementTag)) {
+          // slot contents of nested components belong to the nested component and remain part of the default slot
+          i = subTreeEnd(model, i);
+          continue;
+        }
+      }
+
+      if (templateEvent instanceof IOpenElementTag) {
+        depth++;
+      } else if (templateEvent instanceof ICloseElementTag) {
+        depth--;
+      }
+
+      i++;
+    }
+
+    if (defaultCount == defaultStarts.length) {
+      defaultStarts = copyOf(defaultStarts, defaultCount + 1);
+      defaultEnds = copyOf(defaultEnds, defaultCount + 1);
+    }
+
+    defaultStarts[defaultCount] = defaultStart;
+    defaultEnds[defaultCount] = i;
+    defaultCount++;
+
+    return new SlotIndex(
+      model,
+      copyOf(names, count), copyOf(starts, count), copyOf(ends, count),
+      copyOf(defaultStarts, defaultCount), copyOf(defaultEnds, defaultCount)
+    );
+  }
+
+  boolean hasContent(String slotName) {
+    if (ComponentModelProcessor.DEFAULT_SLOT_NAME.equals(slotName)) {
+      for (int i = 0; i < defaultStarts.length; i++) {
+        if (defaultEnds[i] > defaultStarts[i]) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    return indexOf(slotName) >= 0;
+  }
+
+  void writeContent(String slotName, IModel target) {
+    if (ComponentModelProcessor.DEFAULT_SLOT_NAME.equals(slotName)) {
+      for (int i = 0; i < defaultStarts.length; i++) {
+        writeEvents(target, defaultStarts[i], defaultEnds[i]);
+      }
+    } else {
+      int index = indexOf(slotName);
+
+      if (index >= 0) {
+        writeEvents(target, starts[index], ends[index]);
+      }
+    }
+  }
+
+  /**
+   * Returns whether the component model consists of the component element only, with content for the default slot
+   * only, so that the content can be left in place between the fragment events before and after the default slot.
+   */
+  boolean hasDefaultContentOnly() {
+    return names.length == 0
+      && defaultStarts.length == 1
+      && defaultStarts[0] == 1
+      && defaultEnds[0] > defaultStarts[0]
+      && defaultEnds[0] == model.size() - 1;
+  }
+
+  private int indexOf(String slotName) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(slotName)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  private void writeEvents(IModel target, int from, int to) {
+    for (int i = from; i < to; i++) {
+      target.add(model.get(i));
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static org.thymeleaf.standard.processor.StandardReplaceTagProcessor.PRECEDENCE;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.AbstractAttributeTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+
+/**
+ * Processes the {@code th:block} a streaming component has been expanded to by the
+ * {@link StreamingComponentTemplateHandler}, setting the component attributes as local variables of the block.
+ */
+class StreamedComponentProcessor extends AbstractAttributeTagProcessor {
+
+  private final StreamingComponents streamingComponents;
+
+  StreamedComponentProcessor(ComponentNamespace namespace, StreamingComponents streamingComponents) {
+    super(HTML, namespace.prefix(), null, false, StreamingComponentTemplateHandler.STREAMED_COMPONENT_ATTRIBUTE, true, PRECEDENCE, true);
+
+    this.streamingComponents = streamingComponents;
+  }
+
+  @Override
+  protected void doProcess(
+    ITemplateContext context,
+    IProcessableElementTag tag,
+    AttributeName attributeName,
+    String attributeValue,
+    IElementTagStructureHandler structureHandler
+  ) {
+    ComponentRenderer componentRenderer = streamingComponents.componentRendererFor(attributeValue);
+
+    if (componentRenderer == null) {
+      throw new IllegalStateException("no streaming component '" + attributeValue + "' registered");
+    }
+
+    componentRenderer.renderStreamed(context, tag, structureHandler);
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static org.thymeleaf.model.AttributeValueQuotes.DOUBLE;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.AbstractTemplateHandler;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICDATASection;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IDocType;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.IProcessingInstruction;
+import org.thymeleaf.model.IStandaloneElementTag;
+import org.thymeleaf.model.ITemplateEnd;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.IText;
+import org.thymeleaf.model.IXMLDeclaration;
+
+/**
+ * Pre-processor expanding streaming components while the page template is processed, without buffering their content.
+ * The open tag of a streaming component is replaced by a {@code th:block} carrying the component attributes, followed by
+ * the fragment events before the default slot. The content then streams through as is and the close tag is replaced by
+ * the fragment events after the default slot. Components without content render the fallback of the default slot,
+ * detected by looking ahead a single event.
+ * <p>
+ * Streaming components used within component templates are left to the {@link ComponentModelProcessor}, so that the
+ * plan of a component never contains the expanded fragment of another component.
+ */
+public class StreamingComponentTemplateHandler extends AbstractTemplateHandler {
+
+  static final String STREAMING_COMPONENTS = StreamingComponentTemplateHandler.class.getName() + ".streamingComponents";
+  static final String STREAMED_COMPONENT_ATTRIBUTE = "streamed-component";
+
+  private final Deque<OpenComponent> openComponents;
+  private ITemplateContext context;
+  private List<StreamingComponents> streamingComponents;
+  private IProcessableElementTag pendingComponentElementTag;
+  private ComponentRenderer pendingComponentRenderer;
+  private ComponentPlan pendingComponentPlan;
+
+  public StreamingComponentTemplateHandler() {
+    this.openComponents = new ArrayDeque<>();
+  }
+
+  @Override
+  public void setContext(ITemplateContext context) {
+    super.setContext(context);
+
+    List<StreamingComponents> streamingComponents = new ArrayList<>();
+    boolean componentTemplate = false;
+
+    // every component dialect registers its streaming components under a key of its own
+    for (Map.Entry<String, Object> executionAttribute : context.getConfiguration().getExecutionAttributes().entrySet()) {
+      if (executionAttribute.getKey().startsWith(STREAMING_COMPONENTS) && executionAttribute.getValue() instanceof StreamingComponents) {
+        StreamingComponents dialectStreamingComponents = (StreamingComponents) executionAttribute.getValue();
+        componentTemplate |= dialectStreamingComponents.isComponentTemplate(context.getTemplateData().getTemplate());
+
+        if (!dialectStreamingComponents.isEmpty()) {
+          streamingComponents.add(dialectStreamingComponents);
+        }
+      }
+    }
+
+    this.context = context;
+    this.streamingComponents = !streamingComponents.isEmpty() && !componentTemplate ? streamingComponents : null;
+  }
+
+  @Override
+  public void handleOpenElement(IOpenElementTag openElementTag) {
+    writePendingComponentStart();
+
+    ComponentRenderer componentRenderer = componentRendererFor(openElementTag);
+
+    if (componentRenderer == null) {
+      super.handleOpenElement(openElementTag);
+      return;
+    }
+
+    pendingComponentElementTag = openElementTag;
+    pendingComponentRenderer = componentRenderer;
+    pendingComponentPlan = componentRenderer.streamingPlan(context);
+  }
+
+  @Override
+  public void handleCloseElement(ICloseElementTag closeElementTag) {
+    if (pendingComponentElementTag != null
+      && pendingComponentElementTag.getElementCompleteName().equals(closeElementTag.getElementCompleteName())) {
+      writeComponentWithoutContent(pendingComponentElementTag, pendingComponentRenderer, pendingComponentPlan);
+      pendingComponentElementTag = null;
+      pendingComponentRenderer = null;
+      pendingComponentPlan = null;
+      return;
+    }
+
+    writePendingComponentStart();
+
+    if (!openComponents.isEmpty() && openComponents.peek().elementCompleteName.equals(closeElementTag.getElementCompleteName())) {
+      openComponents.pop().plan.streamSuffix(this::write);
+      super.handleCloseElement(modelFactory().createCloseElementTag("th:block"));
+      return;
+    }
+
+    super.handleCloseElement(closeElementTag);
+  }
+
+  @Override
+  public void handleStandaloneElement(IStandaloneElementTag standaloneElementTag) {
+    writePendingComponentStart();
+
+    ComponentRenderer componentRenderer = componentRendererFor(standaloneElementTag);
+
+    if (componentRenderer == null) {
+      super.handleStandaloneElement(standaloneElementTag);
+      return;
+    }
+
+    writeComponentWithoutContent(standaloneElementTag, componentRenderer, componentRenderer.streamingPlan(context));
+  }
+
+  @Override
+  public void handleText(IText text) {
+    writePendingComponentStart();
+    super.handleText(text);
+  }
+
+  @Override
+  public void handleComment(IComment comment) {
+    writePendingComponentStart();
+    super.handleComment(comment);
+  }
+
+  @Override
+  public void handleCDATASection(ICDATASection cdataSection) {
+    writePendingComponentStart();
+    super.handleCDATASection(cdataSection);
+  }
+
+  @Override
+  public void handleDocType(IDocType docType) {
+    writePendingComponentStart();
+    super.handleDocType(docType);
+  }
+
+  @Override
+  public void handleXMLDeclaration(IXMLDeclaration xmlDeclaration) {
+    writePendingComponentStart();
+    super.handleXMLDeclaration(xmlDeclaration);
+  }
+
+  @Override
+  public void handleProcessingInstruction(IProcessingInstruction processingInstruction) {
+    writePendingComponentStart();
+    super.handleProcessingInstruction(processingInstruction);
+  }
+
+  @Override
+  public void handleTemplateEnd(ITemplateEnd templateEnd) {
+    writePendingComponentStart();
+    super.handleTemplateEnd(templateEnd);
+  }
+
+  private ComponentRenderer componentRendererFor(IProcessableElementTag elementTag) {
+    if (streamingComponents == null) {
+      return null;
+    }
+
+    for (int i = 0; i < streamingComponents.size(); i++) {
+      ComponentRenderer componentRenderer = streamingComponents.get(i).componentRendererFor(elementTag);
+
+      if (componentRenderer != null) {
+        return componentRenderer;
+      }
+    }
+
+    return null;
+  }
+
+  private void writePendingComponentStart() {
+    if (pendingComponentElementTag == null) {
+      return;
+    }
+
+    super.handleOpenElement(blockOpenElement(pendingComponentElementTag, pendingComponentRenderer));
+    pendingComponentPlan.streamPrefix(this::write);
+    openComponents.push(new OpenComponent(pendingComponentElementTag.getElementCompleteName(), pendingComponentPlan));
+
+    pendingComponentElementTag = null;
+    pendingComponentRenderer = null;
+    pendingComponentPlan = null;
+  }
+
+  private void writeComponentWithoutContent(IProcessableElementTag componentElementTag, ComponentRenderer componentRenderer, ComponentPlan plan) {
+    super.handleOpenElement(blockOpenElement(componentElementTag, componentRenderer));
+    plan.streamPrefix(this::write);
+    plan.streamFallback(this::write);
+    plan.streamSuffix(this::write);
+    super.handleCloseElement(modelFactory().createCloseElementTag("th:block"));
+  }
+
+  private IOpenElementTag blockOpenElement(IProcessableElementTag componentElementTag, ComponentRenderer componentRenderer) {
+    Map<String, String> attributes = new LinkedHashMap<>();
+    attributes.put(componentRenderer.namespace().streamedComponentAttributeName(),
+      componentElementTag.getElementDefinition().getElementName().getElementName());
+
+    if (componentElementTag.getAllAttributes() != null) {
+      for (IAttribute attribute : componentElementTag.getAllAttributes()) {
+        attributes.put(attribute.getAttributeCompleteName(), attribute.getValue());
+      }
+    }
+
+    return modelFactory().createOpenElementTag("th:block", attributes, DOUBLE, false);
+  }
+
+  private IModelFactory modelFactory() {
+    return context.getModelFactory();
+  }
+
+  private void write(ITemplateEvent templateEvent) {
+    if (templateEvent instanceof IOpenElementTag) {
+      super.handleOpenElement((IOpenElementTag) templateEvent);
+    } else if (templateEvent instanceof ICloseElementTag) {
+      super.handleCloseElement((ICloseElementTag) templateEvent);
+    } else if (templateEvent instanceof IStandaloneElementTag) {
+      super.handleStandaloneElement((IStandaloneElementTag) templateEvent);
+    } else if (templateEvent instanceof IText) {
+      super.handleText((IText) templateEvent);
+    } else if (templateEvent instanceof IComment) {
+      super.handleComment((IComment) templateEvent);
+    } else if (templateEvent instanceof ICDATASection) {
+      super.handleCDATASection((ICDATASection) templateEvent);
+    } else if (templateEvent instanceof IDocType) {
+      super.handleDocType((IDocType) templateEvent);
+    } else if (templateEvent instanceof IXMLDeclaration) {
+      super.handleXMLDeclaration((IXMLDeclaration) templateEvent);
+    } else if (templateEvent instanceof IProcessingInstruction) {
+      super.handleProcessingInstruction((IProcessingInstruction) templateEvent);
+    }
+  }
+
+  private static final class OpenComponent {
+
+    private final String elementCompleteName;
+    private final ComponentPlan plan;
+
+    private OpenComponent(String elementCompleteName, ComponentPlan plan) {
+      this.elementCompleteName = elementCompleteName;
+      this.plan = plan;
+    }
+  }
+}
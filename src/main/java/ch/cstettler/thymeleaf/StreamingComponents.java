@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.thymeleaf.model.IProcessableElementTag;
+
+/**
+ * Streaming components of a {@link ComponentDialect}, shared with the {@link StreamingComponentTemplateHandler} via the
+ * execution attributes of the template engine configuration.
+ */
+final class StreamingComponents {
+
+  private final ComponentNamespace namespace;
+  private final Map<String, ComponentRenderer> componentRenderers;
+  private final Set<String> componentTemplateNames;
+
+  StreamingComponents(ComponentNamespace namespace, List<ComponentRenderer> componentRenderers) {
+    Map<String, ComponentRenderer> streamingComponentRenderers = new HashMap<>();
+    Set<String> componentTemplateNames = new HashSet<>();
+
+    componentRenderers.forEach(componentRenderer -> {
+      if (componentRenderer.streaming()) {
+        streamingComponentRenderers.putIfAbsent(componentRenderer.elementName().toLowerCase(Locale.ROOT), componentRenderer);
+      }
+
+      componentTemplateNames.add(componentRenderer.templateName());
+    });
+
+    this.namespace = namespace;
+    this.componentRenderers = unmodifiableMap(streamingComponentRenderers);
+    this.componentTemplateNames = unmodifiableSet(componentTemplateNames);
+  }
+
+  boolean isEmpty() {
+    return componentRenderers.isEmpty();
+  }
+
+  ComponentRenderer componentRendererFor(IProcessableElementTag elementTag) {
+    if (!namespace.prefix().equals(elementTag.getElementDefinition().getElementName().getPrefix())) {
+      return null;
+    }
+
+    ComponentRenderer componentRenderer = componentRenderers.get(elementTag.getElementDefinition().getElementName().getElementName());
+
+    return componentRenderer != null && namespace.isComponentTag(elementTag)
+      ? componentRenderer
+      : null;
+  }
+
+  ComponentRenderer componentRendererFor(String elementName) {
+    return componentRenderers.get(elementName.toLowerCase(Locale.ROOT));
+  }
+
+  boolean isComponentTemplate(String templateName) {
+    return componentTemplateNames.contains(templateName);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Map with weakly referenced keys, split into stripes of synchronized {@link WeakHashMap}s selected by the key hash,
+ * so that threads looking up different keys rarely contend for the same lock. Values must not strongly reference their
+ * keys, otherwise the entries are never removed.
+ */
+final class StripedWeakMap<K, V> {
+
+  private static final int STRIPES = 32;
+
+  private final List<Map<K, V>> stripes;
+
+  StripedWeakMap() {
+    this.stripes = new ArrayList<>(STRIPES);
+
+    for (int i = 0; i < STRIPES; i++) {
+      stripes.add(new WeakHashMap<>());
+    }
+  }
+
+  V get(K key) {
+    Map<K, V> stripe = stripeOf(key);
+
+    synchronized (stripe) {
+      return stripe.get(key);
+    }
+  }
+
+  void put(K key, V value) {
+    Map<K, V> stripe = stripeOf(key);
+
+    synchronized (stripe) {
+      stripe.put(key, value);
+    }
+  }
+
+  List<V> values() {
+    List<V> values = new ArrayList<>();
+
+    for (Map<K, V> stripe : stripes) {
+      synchronized (stripe) {
+        values.addAll(stripe.values());
+      }
+    }
+
+    return values;
+  }
+
+  private Map<K, V> stripeOf(K key) {
+    int hash = key.hashCode();
+
+    return stripes.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.ITemplateEvent;
+
+/**
+ * Index based traversal of template models. All lookups run directly over {@link IModel#get(int)} and return indexes
+ * or index ranges instead of copying the template events into intermediate lists.
+ */
+final class TemplateEvents {
+
+  private TemplateEvents() {
+  }
+
+  static int indexOfFirstOpenOrStandaloneElementTag(IModel model) {
+    for (int i = 0; i < model.size(); i++) {
+      if (isOpenOrStandaloneElementTag(model.get(i))) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  static int indexOfFirstOpenElementTagWithAttribute(IModel model, String attributeName) {
+    for (int i = 0; i < model.size(); i++) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (templateEvent instanceof IOpenElementTag && ((IOpenElementTag) templateEvent).hasAttribute(attributeName)) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Returns the end index (exclusive) of the sub tree starting at the given index. The sub tree of an open element tag
+   * ends after its matching close element tag (or at the end of the model if the element is not closed), the sub tree
+   * of any other template event consists of the template event only.
+   */
+  static int subTreeEnd(IModel model, int start) {
+    if (!(model.get(start) instanceof IOpenElementTag)) {
+      return start + 1;
+    }
+
+    int depth = 0;
+
+    for (int i = start; i < model.size(); i++) {
+      ITemplateEvent templateEvent = model.get(i);
+
+      if (templateEvent instanceof IOpenElementTag) {
+        depth++;
+      } else if (templateEvent instanceof ICloseElementTag) {
+        depth--;
+
+        if (depth == 0) {
+          return i + 1;
+        }
+      }
+    }
+
+    return model.size();
+  }
+
+  static boolean isOpenOrStandaloneElementTag(ITemplateEvent templateEvent) {
+    return templateEvent instanceof IProcessableElementTag;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import java.io.Writer;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.engine.ModelBuilderTemplateHandler;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.model.ICDATASection;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IDocType;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelVisitor;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessingInstruction;
+import org.thymeleaf.model.IStandaloneElementTag;
+import org.thymeleaf.model.ITemplateEnd;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.ITemplateStart;
+import org.thymeleaf.model.IText;
+import org.thymeleaf.model.IXMLDeclaration;
+
+/**
+ * Builds a {@link TemplateModel} processable by the template manager from the template events of a model, without
+ * writing the model to markup and parsing it again. The template manager requires a template model to be enclosed by
+ * template start and end events, like a parsed template.
+ */
+final class TemplateModels {
+
+  private TemplateModels() {
+  }
+
+  static TemplateModel templateModelOf(IEngineConfiguration configuration, TemplateData templateData, IModel model) {
+    ModelBuilderTemplateHandler modelBuilder = new ModelBuilderTemplateHandler(configuration, templateData);
+    ModelBuilderVisitor modelBuilderVisitor = new ModelBuilderVisitor(modelBuilder);
+
+    TemplateBoundary.START.accept(modelBuilderVisitor);
+    model.accept(modelBuilderVisitor);
+    TemplateBoundary.END.accept(modelBuilderVisitor);
+
+    return modelBuilder.getModel();
+  }
+
+  private static final class ModelBuilderVisitor implements IModelVisitor {
+
+    private final ModelBuilderTemplateHandler modelBuilder;
+
+    private ModelBuilderVisitor(ModelBuilderTemplateHandler modelBuilder) {
+      this.modelBuilder = modelBuilder;
+    }
+
+    @Override
+    public void visit(ITemplateStart templateStart) {
+      modelBuilder.handleTemplateStart(templateStart);
+    }
+
+    @Override
+    public void visit(ITemplateEnd templateEnd) {
+      modelBuilder.handleTemplateEnd(templateEnd);
+    }
+
+    @Override
+    public void visit(IXMLDeclaration xmlDeclaration) {
+      modelBuilder.handleXMLDeclaration(xmlDeclaration);
+    }
+
+    @Override
+    public void visit(IDocType docType) {
+      modelBuilder.handleDocType(docType);
+    }
+
+    @Override
+    public void visit(ICDATASection cdataSection) {
+      modelBuilder.handleCDATASection(cdataSection);
+    }
+
+    @Override
+    public void visit(IComment comment) {
+      modelBuilder.handleComment(comment);
+    }
+
+    @Override
+    public void visit(IText text) {
+      modelBuilder.handleText(text);
+    }
+
+    @Override
+    public void visit(IStandaloneElementTag standaloneElementTag) {
+      modelBuilder.handleStandaloneElement(standaloneElementTag);
+    }
+
+    @Override
+    public void visit(IOpenElementTag openElementTag) {
+      modelBuilder.handleOpenElement(openElementTag);
+    }
+
+    @Override
+    public void visit(ICloseElementTag closeElementTag) {
+      modelBuilder.handleCloseElement(closeElementTag);
+    }
+
+    @Override
+    public void visit(IProcessingInstruction processingInstruction) {
+      modelBuilder.handleProcessingInstruction(processingInstruction);
+    }
+  }
+
+  private abstract static class TemplateBoundary implements ITemplateEvent {
+
+    private static final ITemplateStart START = new TemplateStart();
+    private static final ITemplateEnd END = new TemplateEnd();
+
+    @Override
+    public boolean hasLocation() {
+      return false;
+    }
+
+    @Override
+    public String getTemplateName() {
+      return null;
+    }
+
+    @Override
+    public int getLine() {
+      return -1;
+    }
+
+    @Override
+    public int getCol() {
+      return -1;
+    }
+
+    @Override
+    public void write(Writer writer) {
+    }
+  }
+
+  private static final class TemplateStart extends TemplateBoundary implements ITemplateStart {
+
+    @Override
+    public void accept(IModelVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+
+  private static final class TemplateEnd extends TemplateBoundary implements ITemplateEnd {
+
+    @Override
+    public void accept(IModelVisitor visitor) {
+      visitor.visit(this);
+    }
+  }
+}
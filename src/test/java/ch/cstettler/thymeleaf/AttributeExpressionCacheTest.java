@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.standard.expression.IStandardExpressionParser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AttributeExpressionCacheTest {
+
+  private final ITemplateContext context = mock(ITemplateContext.class);
+  private final IStandardExpressionParser expressionParser = literalExpressionParser();
+
+  @Test
+  void resolve_literalResolvedRepeatedly_parsesLiteralOnce() {
+    AttributeExpressionCache expressionCache = new AttributeExpressionCache();
+
+    expressionCache.resolve("title", context, expressionParser);
+    Object value = expressionCache.resolve("title", context, expressionParser);
+
+    assertEquals("title", value);
+    verify(expressionParser, times(1)).parseExpression(context, "title");
+  }
+
+  @Test
+  void resolve_literalWithSinglePreprocessingDelimiter_parsesLiteralOnce() {
+    AttributeExpressionCache expressionCache = new AttributeExpressionCache();
+
+    expressionCache.resolve("foo__bar", context, expressionParser);
+    expressionCache.resolve("foo__bar", context, expressionParser);
+
+    verify(expressionParser, times(1)).parseExpression(context, "foo__bar");
+  }
+
+  @Test
+  void resolve_valueWithPreprocessingExpression_parsesValueOnEachResolution() {
+    AttributeExpressionCache expressionCache = new AttributeExpressionCache();
+
+    expressionCache.resolve("__${type}__-card", context, expressionParser);
+    expressionCache.resolve("__${type}__-card", context, expressionParser);
+
+    verify(expressionParser, times(2)).parseExpression(context, "__${type}__-card");
+  }
+
+  @Test
+  void resolve_moreDistinctValuesThanCacheSize_keepsCachingRecentValues() {
+    AttributeExpressionCache expressionCache = new AttributeExpressionCache();
+
+    for (int i = 0; i < 20_000; i++) {
+      expressionCache.resolve("value-" + i, context, expressionParser);
+    }
+
+    expressionCache.resolve("title", context, expressionParser);
+    expressionCache.resolve("title", context, expressionParser);
+
+    verify(expressionParser, times(1)).parseExpression(context, "title");
+  }
+
+  private static IStandardExpressionParser literalExpressionParser() {
+    IStandardExpressionParser expressionParser = mock(IStandardExpressionParser.class);
+    when(expressionParser.parseExpression(any(), anyString())).thenThrow(new TemplateProcessingException("no expression"));
+
+    return expressionParser;
+  }
+}
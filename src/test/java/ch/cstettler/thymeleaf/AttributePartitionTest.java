@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.engine.StandardModelFactory;
+import org.thymeleaf.model.IProcessableElementTag;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static ch.cstettler.thymeleaf.ComponentAttributes.attributes;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.thymeleaf.model.AttributeValueQuotes.DOUBLE;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+class AttributePartitionTest {
+
+  private static final Function<String, Object> IDENTITY = value -> value;
+
+  @Test
+  void of_componentAndAdditionalAttributes_partitionsAttributes() {
+    IProcessableElementTag elementTag = elementTag("pl:title", "title", "th:if", "${visible}", "pl:count", "1", "class", "card");
+
+    AttributePartition attributePartition = AttributePartition.of(elementTag, "pl", null);
+
+    assertEquals(Map.of("title", "title", "count", "1"), componentAttributesOf(attributePartition, elementTag));
+    assertEquals(Map.of("th:if", "${visible}", "class", "card"),
+        attributePartition.resolveAdditionalAttributes(elementTag.getAllAttributes(), IDENTITY));
+  }
+
+  @Test
+  void of_elementTagWithoutAttributes_resolvesNoAttributes() {
+    IProcessableElementTag elementTag = mock(IProcessableElementTag.class);
+
+    AttributePartition attributePartition = AttributePartition.of(elementTag, "pl", null);
+
+    assertEquals(Map.of(), componentAttributesOf(attributePartition, elementTag));
+    assertEquals(Map.of(), attributePartition.resolveAdditionalAttributes(elementTag.getAllAttributes(), IDENTITY));
+  }
+
+  @Test
+  void of_declaredAttributes_resolvesConvertedValuesAndDefaults() {
+    IProcessableElementTag elementTag = elementTag("pl:title", "title", "pl:slot", "header");
+
+    AttributePartition attributePartition = AttributePartition.of(elementTag, "pl", attributes()
+        .required("title", String.class)
+        .optional("count", Integer.class, 1));
+
+    assertEquals(Map.of("title", "title", "count", 1), componentAttributesOf(attributePartition, elementTag));
+  }
+
+  @Test
+  void resolveProps_declaredAttributes_resolvesConvertedValuesAndDefaults() {
+    IProcessableElementTag elementTag = elementTag("pl:title", "title", "class", "card");
+
+    AttributePartition attributePartition = AttributePartition.of(elementTag, "pl", attributes()
+        .required("title", String.class)
+        .optional("count", Integer.class, 1));
+    Map<String, Object> props = attributePartition.resolveProps(elementTag.getAllAttributes(), IDENTITY, false);
+
+    assertEquals(Map.of("title", "title", "count", 1), props);
+    assertEquals(1, props.get("count"));
+    assertFalse(props.containsKey("class"));
+    assertThrows(UnsupportedOperationException.class, () -> props.put("title", "other"));
+  }
+
+  @Test
+  void of_undeclaredAttribute_fails() {
+    IProcessableElementTag elementTag = elementTag("pl:title", "title", "pl:tilte", "title");
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class,
+        () -> AttributePartition.of(elementTag, "pl", attributes().required("title", String.class)));
+
+    assertTrue(exception.getMessage().contains("unknown attribute 'pl:tilte'"));
+  }
+
+  @Test
+  void of_requiredAttributeMissing_fails() {
+    IProcessableElementTag elementTag = elementTag("class", "card");
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class,
+        () -> AttributePartition.of(elementTag, "pl", attributes().required("title", String.class)));
+
+    assertTrue(exception.getMessage().contains("missing required attribute 'pl:title'"));
+  }
+
+  private static Map<String, Object> componentAttributesOf(AttributePartition attributePartition, IProcessableElementTag elementTag) {
+    Map<String, Object> componentAttributes = new LinkedHashMap<>();
+    attributePartition.resolveComponentAttributes(elementTag.getAllAttributes(), IDENTITY, false, componentAttributes::put);
+
+    return componentAttributes;
+  }
+
+  private static IProcessableElementTag elementTag(String... attributeNamesAndValues) {
+    Map<String, String> attributes = new LinkedHashMap<>();
+
+    for (int i = 0; i < attributeNamesAndValues.length; i += 2) {
+      attributes.put(attributeNamesAndValues[i], attributeNamesAndValues[i + 1]);
+    }
+
+    return new StandardModelFactory(new TemplateEngine().getConfiguration(), HTML)
+        .createOpenElementTag("pl:card", attributes, DOUBLE, false);
+  }
+}
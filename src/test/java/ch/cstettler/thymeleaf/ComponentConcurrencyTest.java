@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+/**
+ * Renders mixed component pages from many threads at the same time against a shared, initially cold template engine
+ * and compares every output byte for byte with the output of the same page rendered single-threaded.
+ */
+class ComponentConcurrencyTest {
+
+  private static final int THREADS = 16;
+  private static final int RENDERINGS_PER_THREAD = 200;
+  private static final int VARIABLE_SETS = 20;
+
+  private static final String NESTED_COMPONENTS_PAGE = ""
+      + "<pl:with-default-and-named-slots>"
+      + "  <pl:with-parameter pl:parameter='${value}' />"
+      + "  <div pl:slot='slot-a'><pl:with-declared-parameters pl:title='${value}' pl:count='${index}' /></div>"
+      + "</pl:with-default-and-named-slots>";
+
+  private static final String ITERATED_COMPONENTS_PAGE = ""
+      + "<pl:with-parameter-and-default-slot pl:title='${value}'>"
+      + "  <li th:each='item : ${items}'>"
+      + "    <pl:with-slot-with-fallback th:if='${item % 2 == 0}' />"
+      + "    <pl:simple th:unless='${item % 2 == 0}' />"
+      + "  </li>"
+      + "</pl:with-parameter-and-default-slot>";
+
+  private static final String NESTED_SLOTS_PAGE = ""
+      + "<pl:with-nested-slots><p pl:slot='inner' th:text='${value}'></p></pl:with-nested-slots>"
+      + "<pl:with-named-slots><i pl:slot='slot-b'>static</i></pl:with-named-slots>";
+
+  private static final String STREAMING_COMPONENTS_PAGE = ""
+      + "<pl:streaming-with-parameter-and-default-slot pl:title='${value}'>"
+      + "  <li th:each='item : ${items}'><pl:with-parameter pl:parameter='${item}' /></li>"
+      + "</pl:streaming-with-parameter-and-default-slot>";
+
+  private static final String PURE_COMPONENTS_PAGE = ""
+      + "<th:block th:each='item : ${items}'><pl:pure-with-parameter pl:parameter='${item % 3}' /></th:block>";
+
+  @Test
+  void concurrentRendering_defaultComponents_rendersSameOutputAsSingleThreaded() throws Exception {
+    assertConcurrentRenderingMatchesSingleThreaded(
+        ComponentConcurrencyTest::componentDialect,
+        NESTED_COMPONENTS_PAGE, ITERATED_COMPONENTS_PAGE, NESTED_SLOTS_PAGE);
+  }
+
+  @Test
+  void concurrentRendering_dispatchingProcessor_rendersSameOutputAsSingleThreaded() throws Exception {
+    assertConcurrentRenderingMatchesSingleThreaded(
+        () -> componentDialect().dispatchingProcessor(true),
+        NESTED_COMPONENTS_PAGE, ITERATED_COMPONENTS_PAGE, NESTED_SLOTS_PAGE);
+  }
+
+  @Test
+  void concurrentRendering_streamingAndPureComponentsWithRenderListener_rendersSameOutputAsSingleThreaded() throws Exception {
+    assertConcurrentRenderingMatchesSingleThreaded(
+        () -> componentDialect()
+            .addStreamingComponent("streaming-with-parameter-and-default-slot", "components/with-parameter-and-default-slot.html")
+            .addPureComponent("pure-with-parameter", "components/with-parameter.html")
+            .pureComponentCacheSize(2)
+            .renderListener(new InMemoryComponentMetrics()),
+        NESTED_COMPONENTS_PAGE, STREAMING_COMPONENTS_PAGE, PURE_COMPONENTS_PAGE);
+  }
+
+  @Test
+  void concurrentFirstRendering_coldTemplateEngine_parsesComponentTemplateOnce() throws Exception {
+    for (int round = 0; round < 20; round++) {
+      ComponentDialect componentDialect = componentDialect();
+      TemplateEngine templateEngine = templateEngine(componentDialect);
+      CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+      try {
+        List<Future<String>> outputs = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+          // a page of its own per thread, as the template engine caches parsed templates per page using them
+          String page = "<div id='page-" + thread + "'><pl:simple /></div>";
+
+          outputs.add(executor.submit(() -> {
+            start.await();
+
+            return new Rendering(page, Map.of()).render(templateEngine);
+          }));
+        }
+
+        start.countDown();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+          assertEquals("<div id='page-" + thread + "'><i>simple</i></div>", outputs.get(thread).get().replaceAll(">\\s+<", "><"));
+        }
+      } finally {
+        executor.shutdown();
+      }
+
+      assertEquals(1, componentDialect.componentFootprints().get("simple").templateVersions());
+    }
+  }
+
+  private static void assertConcurrentRenderingMatchesSingleThreaded(
+      Supplier<ComponentDialect> componentDialect,
+      String... pages
+  ) throws Exception {
+    List<Rendering> renderings = renderings(pages);
+
+    TemplateEngine singleThreadedTemplateEngine = templateEngine(componentDialect.get());
+    List<String> expectedOutputs = renderings.stream()
+        .map(rendering -> rendering.render(singleThreadedTemplateEngine))
+        .collect(toList());
+
+    assertTrue(expectedOutputs.stream().noneMatch(output -> output.contains("<pl:")), "all components expanded");
+
+    TemplateEngine sharedTemplateEngine = templateEngine(componentDialect.get());
+    Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    try {
+      List<Future<?>> threads = new ArrayList<>();
+
+      for (int thread = 0; thread < THREADS; thread++) {
+        int offset = thread * 7;
+
+        threads.add(executor.submit(() -> {
+          start.await();
+
+          for (int i = 0; i < RENDERINGS_PER_THREAD; i++) {
+            int index = (offset + i) % renderings.size();
+            String output = renderings.get(index).render(sharedTemplateEngine);
+
+            if (!expectedOutputs.get(index).equals(output)) {
+              mismatches.add(renderings.get(index) + " rendered\n" + output + "\ninstead of\n" + expectedOutputs.get(index));
+            }
+          }
+
+          return null;
+        }));
+      }
+
+      // start all threads at once, so that they also race for populating the caches
+      start.countDown();
+
+      for (Future<?> thread : threads) {
+        thread.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertTrue(mismatches.isEmpty(), () -> mismatches.size() + " mismatching outputs, first: " + mismatches.peek());
+  }
+
+  private static List<Rendering> renderings(String... pages) {
+    List<Rendering> renderings = new ArrayList<>();
+
+    for (String page : pages) {
+      for (int i = 0; i < VARIABLE_SETS; i++) {
+        renderings.add(new Rendering(page, Map.of(
+            "value", "value-" + (i % 7),
+            "index", i % 5,
+            "items", IntStream.range(0, i % 11).boxed().collect(toList()))));
+      }
+    }
+
+    return renderings;
+  }
+
+  private static ComponentDialect componentDialect() {
+    return new ComponentDialect()
+        .addComponent("simple", "components/simple.html")
+        .addComponent("with-parameter", "components/with-parameter.html")
+        .addComponent("with-default-and-named-slots", "components/with-default-and-named-slots.html")
+        .addComponent("with-named-slots", "components/with-named-slots.html")
+        .addComponent("with-slot-with-fallback", "components/with-slot-with-fallback.html")
+        .addComponent("with-nested-slots", "components/with-nested-slots.html")
+        .addComponent("with-parameter-and-default-slot", "components/with-parameter-and-default-slot.html")
+        .addComponent("with-declared-parameters", "components/with-declared-parameters.html", ComponentAttributes.attributes()
+            .required("title", String.class)
+            .optional("count", Integer.class, 0));
+  }
+
+  private static TemplateEngine templateEngine(ComponentDialect componentDialect) {
+    ClassLoaderTemplateResolver componentTemplateResolver = new ClassLoaderTemplateResolver();
+    componentTemplateResolver.setResolvablePatterns(setOf("components/*"));
+    componentTemplateResolver.setOrder(1);
+
+    StringTemplateResolver pageTemplateResolver = new StringTemplateResolver();
+    pageTemplateResolver.setCacheable(true);
+    pageTemplateResolver.setOrder(2);
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolvers(setOf(componentTemplateResolver, pageTemplateResolver));
+    templateEngine.addDialect(componentDialect);
+
+    return templateEngine;
+  }
+
+  @SafeVarargs
+  private static <T> LinkedHashSet<T> setOf(T... items) {
+    return new LinkedHashSet<>(asList(items));
+  }
+
+  private static class Rendering {
+
+    private final String page;
+    private final Map<String, Object> variables;
+
+    private Rendering(String page, Map<String, Object> variables) {
+      this.page = page;
+      this.variables = variables;
+    }
+
+    private String render(TemplateEngine templateEngine) {
+      return templateEngine.process(new TemplateSpec(page, HTML), new Context(null, variables));
+    }
+
+    @Override
+    public String toString() {
+      return "page " + page + " with variables " + variables;
+    }
+  }
+}
@@ -18,34 +18,42 @@ package ch.cstettler.thymeleaf;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.IThrottledTemplateProcessor;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.TemplateSpec;
 import org.thymeleaf.context.Context;
-import org.thymeleaf.model.ICloseElementTag;
-import org.thymeleaf.model.IModel;
-import org.thymeleaf.model.IOpenElementTag;
-import org.thymeleaf.model.IStandaloneElementTag;
-import org.thymeleaf.model.ITemplateEnd;
-import org.thymeleaf.model.ITemplateEvent;
-import org.thymeleaf.model.ITemplateStart;
-import org.thymeleaf.model.IText;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.templateresolver.AbstractConfigurableTemplateResolver;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 import org.thymeleaf.templateresolver.ITemplateResolver;
 import org.thymeleaf.templateresolver.StringTemplateResolver;
 import org.thymeleaf.templateresolver.TemplateResolution;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
 
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static ch.cstettler.thymeleaf.ComponentAttributes.attributes;
 import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.thymeleaf.templatemode.TemplateMode.HTML;
 
 class ComponentModelProcessorTest {
@@ -112,6 +120,18 @@ class ComponentModelProcessorTest {
     assertMarkupEquals("<i>with-parameter-defined</i>", html);
   }
 
+  @Test
+  void withParameter_expressionParameterDefined_rendersResolvedParameter() {
+    String html = render(""
+        + "<th:block th:with='value=with-parameter-resolved'>"
+        + "  <pl:with-parameter pl:parameter='${value}' />"
+        + "  <pl:with-parameter pl:parameter='${value}' />"
+        + "</th:block>"
+    );
+
+    assertMarkupEquals("<i>with-parameter-resolved</i><i>with-parameter-resolved</i>", html);
+  }
+
   @Test
   void withParameter_parameterNotDefined_renders() {
     String html = render("<pl:with-parameter />");
@@ -119,6 +139,78 @@ class ComponentModelProcessorTest {
     assertMarkupEquals("<i></i>", html);
   }
 
+  @Test
+  void withDeclaredParameters_parametersDefined_rendersConvertedParameters() {
+    String html = render("<pl:with-declared-parameters pl:title='title' pl:count='41' />");
+
+    assertMarkupEquals("<i>title</i><b>42</b>", html);
+  }
+
+  @Test
+  void withDeclaredParameters_optionalParameterNotDefined_rendersDefaultValue() {
+    String html = render("<pl:with-declared-parameters pl:title='title' />");
+
+    assertMarkupEquals("<i>title</i><b>1</b>", html);
+  }
+
+  @Test
+  void withDeclaredParameters_requiredParameterNotDefined_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-declared-parameters />"));
+
+    assertTrue(rootCauseOf(exception).getMessage().contains("missing required attribute 'pl:title'"));
+  }
+
+  @Test
+  void withDeclaredParameters_undeclaredParameterDefined_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-declared-parameters pl:title='title' pl:tilte='title' />"));
+
+    assertTrue(rootCauseOf(exception).getMessage().contains("unknown attribute 'pl:tilte'"));
+  }
+
+  @Test
+  void withDeclaredParameters_wholeDecimalNumberForIntegerParameter_rendersConvertedParameter() {
+    String html = render("<pl:with-declared-parameters pl:title='title' pl:count='${41.0}' />");
+
+    assertMarkupEquals("<i>title</i><b>42</b>", html);
+  }
+
+  @Test
+  void withDeclaredParameters_fractionalNumberForIntegerParameter_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-declared-parameters pl:title='title' pl:count='${3.7}' />"));
+
+    assertTrue(rootCauseOf(exception).getMessage().contains("cannot convert value '3.7' of attribute 'count' to java.lang.Integer"));
+  }
+
+  @Test
+  void withDeclaredParameters_numberExceedingIntegerParameter_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-declared-parameters pl:title='title' pl:count='${3000000000L}' />"));
+
+    assertTrue(rootCauseOf(exception).getMessage().contains("cannot convert value '3000000000' of attribute 'count' to java.lang.Integer"));
+  }
+
+  @Test
+  void addComponent_duplicateDeclaredAttribute_fails() {
+    assertThrows(IllegalArgumentException.class, () -> attributes()
+        .required("title", String.class)
+        .optional("title", String.class));
+  }
+
+  @Test
+  void addComponent_defaultValueNotConvertible_fails() {
+    assertThrows(IllegalArgumentException.class, () -> attributes()
+        .optional("count", Integer.class, "many"));
+  }
+
+  @Test
+  void addComponent_fractionalDefaultValueForIntegerAttribute_fails() {
+    assertThrows(IllegalArgumentException.class, () -> attributes()
+        .optional("count", Integer.class, 3.7));
+  }
+
   @Test
   void withDefaultSlot_slotContentDefined_rendersSlotContent() {
     String html = render(""
@@ -144,6 +236,58 @@ class ComponentModelProcessorTest {
         + "</div>", html);
   }
 
+  @Test
+  void withDefaultSlot_slotContentWithAdditionalAttribute_rendersSlotContent() {
+    String html = render(""
+        + "<th:block th:each='item : ${{1, 2}}'>"
+        + "  <pl:with-default-slot th:if='${item == 2}'>"
+        + "    <i th:text='${item}'>slot-content</i>"
+        + "  </pl:with-default-slot>"
+        + "</th:block>"
+    );
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <i>2</i>"
+        + "</div>", html);
+  }
+
+  @Test
+  void forwardingDefaultSlot_slotContentDefined_rendersSlotContentInNestedComponent() {
+    String html = render(""
+        + "<pl:forwarding-default-slot>"
+        + "  <i>slot-content</i>"
+        + "  <pl:with-parameter pl:parameter='nested' />"
+        + "</pl:forwarding-default-slot>",
+        componentDialect().addComponent("forwarding-default-slot", "components/forwarding-default-slot.html")
+    );
+
+    assertMarkupEquals(""
+        + "<section>"
+        + "  <div>"
+        + "    <i>with-default-slot</i>"
+        + "    <i>slot-content</i>"
+        + "    <i>nested</i>"
+        + "  </div>"
+        + "</section>", html);
+  }
+
+  @Test
+  void forwardingDefaultSlot_slotContentNotDefined_rendersNestedComponentWithoutSlot() {
+    String html = render(
+        "<pl:forwarding-default-slot />",
+        componentDialect().addComponent("forwarding-default-slot", "components/forwarding-default-slot.html")
+    );
+
+    assertMarkupEquals(""
+        + "<section>"
+        + "  <div>"
+        + "    <i>with-default-slot</i>"
+        + "  </div>"
+        + "</section>", html);
+  }
+
   @Test
   void withNamedSlots_slotContentsDefined_rendersSlotContents() {
     String html = render(""
@@ -251,137 +395,831 @@ class ComponentModelProcessorTest {
   }
 
   @Test
-  void subTree_rootStartTemplateEvent_returnsCompleteTree() {
-    ITemplateEvent startTemplateEvent = openElementTag();
-    List<ITemplateEvent> templateEvents = List.of(
-        startTemplateEvent,
-        textElementTag(),
-        closeElementTag()
+  void withNestedSlots_innerSlotContentDefined_rendersOuterFallbackWithInnerSlotContent() {
+    String html = render(""
+        + "<pl:with-nested-slots>"
+        + "  <i pl:slot='inner'>inner-slot-content</i>"
+        + "</pl:with-nested-slots>"
     );
 
-    IModel model = modelFor(templateEvents);
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <p>outer-fallback</p>"
+        + "  <i>inner-slot-content</i>"
+        + "</div>", html);
+  }
 
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, startTemplateEvent);
+  @Test
+  void withNestedSlots_outerSlotContentDefined_rendersOuterSlotContentOnly() {
+    String html = render(""
+        + "<pl:with-nested-slots>"
+        + "  <i pl:slot='outer'>outer-slot-content</i>"
+        + "  <i pl:slot='inner'>inner-slot-content</i>"
+        + "</pl:with-nested-slots>"
+    );
 
-    assertEquals(templateEvents, subTree);
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>outer-slot-content</i>"
+        + "</div>", html);
   }
 
   @Test
-  void subTree_nonRootStartTemplateEvent_returnsSubTree() {
-    ITemplateEvent startTemplateEvent = openElementTag();
-    List<ITemplateEvent> templateEvents = List.of(
-        openElementTag(),
-        startTemplateEvent,
-        textElementTag(),
-        closeElementTag(),
-        closeElementTag()
+  void nestedComponents_sameSlotNames_rendersSlotContentsIntoOwningComponents() {
+    String html = render(""
+        + "<pl:with-default-and-named-slots>"
+        + "  <pl:with-named-slots>"
+        + "    <i pl:slot='slot-a'>inner-slot-content-a</i>"
+        + "  </pl:with-named-slots>"
+        + "  <i pl:slot='slot-a'>outer-slot-content-a</i>"
+        + "</pl:with-default-and-named-slots>"
     );
 
-    IModel model = modelFor(templateEvents);
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-and-named-slots</i>"
+        + "  <div>"
+        + "    <div>"
+        + "      <i>with-named-slots</i>"
+        + "      <div>"
+        + "        <i>inner-slot-content-a</i>"
+        + "      </div>"
+        + "      <div>"
+        + "      </div>"
+        + "    </div>"
+        + "  </div>"
+        + "  <div>"
+        + "    <i>outer-slot-content-a</i>"
+        + "  </div>"
+        + "</div>", html);
+  }
 
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, startTemplateEvent);
+  @Test
+  void invalidComponent_templateWithoutFragment_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:without-fragment />", invalidComponentDialect()));
 
-    assertEquals(templateEvents.subList(1, 4), subTree);
+    assertEquals("component template 'components/invalid/without-fragment.html' does not contain an element with th:fragment attribute",
+        rootCauseOf(exception).getMessage());
   }
 
   @Test
-  void subTree_fragmentRootAsStartTemplateEvent_returnsSubTree() {
-    ITemplateEvent startTemplateEvent = openElementTag();
-    List<ITemplateEvent> templateEvents = List.of(
-        templateStart(),
-        startTemplateEvent,
-        textElementTag(),
-        openElementTag(),
-        textElementTag(),
-        closeElementTag(),
-        textElementTag(),
-        closeElementTag(),
-        textElementTag(),
-        templateEnd()
-    );
+  void invalidComponent_templateWithDuplicateSlots_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-duplicate-slots />", invalidComponentDialect()));
 
-    IModel model = modelFor(templateEvents);
+    assertEquals("duplicate slot 'slot-a' in component template 'components/invalid/with-duplicate-slots.html'",
+        rootCauseOf(exception).getMessage());
+  }
 
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, startTemplateEvent);
+  @Test
+  void invalidComponent_templateWithEmptySlotName_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-empty-slot-name />", invalidComponentDialect()));
 
-    assertEquals(templateEvents.subList(1, 8), subTree);
+    assertTrue(rootCauseOf(exception).getMessage().startsWith(
+        "slot with empty name in component template 'components/invalid/with-empty-slot-name.html'"));
   }
 
   @Test
-  void subTree_standaloneTagAsStartTemplateEvent_returnsStandaloneTagOnly() {
-    ITemplateEvent startTemplateEvent = standaloneElementTag();
-    List<ITemplateEvent> templateEvents = List.of(
-        openElementTag(),
-        startTemplateEvent,
-        textElementTag(),
-        closeElementTag()
-    );
+  void renderListener_componentsRendered_reportsRenderingsPerComponent() {
+    InMemoryComponentMetrics metrics = new InMemoryComponentMetrics();
 
-    IModel model = modelFor(templateEvents);
+    render(""
+        + "<pl:with-default-slot>"
+        + "  <pl:simple />"
+        + "  <pl:simple />"
+        + "</pl:with-default-slot>", componentDialect().renderListener(metrics));
 
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, startTemplateEvent);
+    assertEquals(2, metrics.metricsFor("simple").invocations());
+    assertEquals(1, metrics.metricsFor("with-default-slot").invocations());
+    assertTrue(metrics.metricsFor("with-default-slot").mergedModelSize().max() > 0);
+  }
 
-    assertEquals(List.of(startTemplateEvent), subTree);
+  @Test
+  void dispatchingProcessor_nestedComponents_rendersComponents() {
+    String html = render(""
+        + "<pl:with-default-slot>"
+        + "  <pl:with-parameter pl:parameter='value' />"
+        + "  <pl:simple />"
+        + "</pl:with-default-slot>", componentDialect().dispatchingProcessor(true));
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <i>value</i>"
+        + "  <i>simple</i>"
+        + "</div>", html);
   }
 
   @Test
-  void subTree_multipleSiblingSubTrees_returnsMatchingSubTree() {
-    ITemplateEvent startTemplateEvent = openElementTag();
-    List<ITemplateEvent> templateEvents = List.of(
-        startTemplateEvent,
-        textElementTag(),
-        closeElementTag(),
-        openElementTag(),
-        textElementTag(),
-        closeElementTag()
-    );
+  void dispatchingProcessor_unknownComponent_rendersElementUnchanged() {
+    String html = render("<pl:unknown><pl:simple /></pl:unknown>", componentDialect().dispatchingProcessor(true));
+
+    assertMarkupEquals("<pl:unknown><i>simple</i></pl:unknown>", html);
+  }
+
+  @Test
+  void dispatchingProcessor_webComponentWithPrefix_rendersElementUnchanged() {
+    String html = render("<pl-simple></pl-simple>", componentDialect().dispatchingProcessor(true));
+
+    assertMarkupEquals("<pl-simple></pl-simple>", html);
+  }
+
+  @Test
+  void dispatchingProcessor_registeredComponents_registersSingleProcessorMatchingPrefix() {
+    Set<IProcessor> processors = componentDialect().dispatchingProcessor(true).getProcessors("pl");
+
+    List<ComponentDispatchingProcessor> dispatchingProcessors = processors.stream()
+        .filter(processor -> processor instanceof ComponentDispatchingProcessor)
+        .map(processor -> (ComponentDispatchingProcessor) processor)
+        .collect(toList());
+    assertEquals(1, dispatchingProcessors.size());
+    assertEquals("pl", dispatchingProcessors.get(0).getMatchingElementName().getMatchingAllElementsWithPrefix());
+    assertFalse(processors.stream().anyMatch(processor -> processor instanceof ComponentModelProcessor));
+  }
+
+  @Test
+  void streamingComponent_slotContentDefined_rendersSlotContent() {
+    String html = render(""
+        + "<pl:streaming-with-default-slot>"
+        + "  <i>slot-content</i>"
+        + "</pl:streaming-with-default-slot>", streamingComponentDialect());
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <i>slot-content</i>"
+        + "</div>", html);
+  }
+
+  @Test
+  void streamingComponent_slotContentNotDefined_rendersFallback() {
+    String html = render(""
+        + "<pl:streaming-with-slot-with-fallback></pl:streaming-with-slot-with-fallback>"
+        + "<pl:streaming-with-slot-with-fallback />", streamingComponentDialect());
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-slot-with-fallback</i>"
+        + "  <p>fallback</p>"
+        + "</div>"
+        + "<div>"
+        + "  <i>with-slot-with-fallback</i>"
+        + "  <p>fallback</p>"
+        + "</div>", html);
+  }
+
+  @Test
+  void streamingComponent_parameterAndIteratedSlotContent_rendersSameAsBufferedComponent() {
+    String template = ""
+        + "<pl:%1$s pl:title='${title}' th:if='${visible}'>"
+        + "  <li th:each='item : ${items}' th:text='${item}'></li>"
+        + "  <pl:%1$s pl:title='nested'><li>nested-content</li></pl:%1$s>"
+        + "</pl:%1$s>";
+    Map<String, Object> variables = Map.of("title", "title", "visible", true, "items", asList("a", "b", "c"));
+    InMemoryComponentMetrics metrics = new InMemoryComponentMetrics();
+
+    String streamedHtml = render(cachingTemplateEngine(streamingComponentDialect().renderListener(metrics)),
+        String.format(template, "streaming-with-parameter-and-default-slot"), variables);
+    String bufferedHtml = render(cachingTemplateEngine(streamingComponentDialect()),
+        String.format(template, "with-parameter-and-default-slot"), variables);
+
+    assertMarkupEquals(""
+        + "<ul>"
+        + "  <li>title</li>"
+        + "  <li>a</li><li>b</li><li>c</li>"
+        + "  <ul>"
+        + "    <li>nested</li>"
+        + "    <li>nested-content</li>"
+        + "  </ul>"
+        + "</ul>", streamedHtml);
+    assertMarkupEquals(bufferedHtml, streamedHtml);
+    assertEquals(2, metrics.metricsFor("streaming-with-parameter-and-default-slot").invocations());
+    assertEquals(0, metrics.metricsFor("streaming-with-parameter-and-default-slot").mergedModelSize().max());
+  }
+
+  @Test
+  void streamingComponent_usedInComponentTemplate_rendersBuffered() {
+    String html = render(""
+        + "<pl:with-default-slot>"
+        + "  <pl:streaming-with-default-slot><i>slot-content</i></pl:streaming-with-default-slot>"
+        + "</pl:with-default-slot>", streamingComponentDialect());
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <div>"
+        + "    <i>with-default-slot</i>"
+        + "    <i>slot-content</i>"
+        + "  </div>"
+        + "</div>", html);
+  }
+
+  @Test
+  void streamingComponent_namedSlots_fails() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:streaming-with-named-slots></pl:streaming-with-named-slots>", streamingComponentDialect()));
+
+    assertTrue(rootCauseOf(exception).getMessage().contains("to define the default slot as its only slot"));
+  }
+
+  @Test
+  void pureComponent_sameParameterRenderedTwice_rendersCachedOutput() {
+    ComponentDialect componentDialect = componentDialect().addPureComponent("pure-with-parameter", "components/with-parameter.html");
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+    String template = "<pl:pure-with-parameter pl:parameter='${value}' />";
+
+    String firstHtml = render(templateEngine, template, Map.of("value", "first"));
+    String secondHtml = render(templateEngine, template, Map.of("value", "first"));
+    String thirdHtml = render(templateEngine, template, Map.of("value", "second"));
+
+    assertMarkupEquals("<i>first</i>", firstHtml);
+    assertMarkupEquals("<i>first</i>", secondHtml);
+    assertMarkupEquals("<i>second</i>", thirdHtml);
+    assertEquals(1, componentDialect.pureComponentCacheStatistics().hits());
+    assertEquals(2, componentDialect.pureComponentCacheStatistics().misses());
+    assertEquals(2, componentDialect.pureComponentCacheStatistics().size());
+  }
+
+  @Test
+  void pureComponent_cachedOutputWithInlinedExpression_rendersOutputUnchanged() {
+    ComponentDialect componentDialect = componentDialect().addPureComponent("pure-with-parameter", "components/with-parameter.html");
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+    String template = "<pl:pure-with-parameter pl:parameter='[[${value}]]' />";
+
+    render(templateEngine, template, Map.of("value", "value"));
+    String html = render(templateEngine, template, Map.of("value", "value"));
+
+    assertMarkupEquals("<i>[[${value}]]</i>", html);
+    assertEquals(1, componentDialect.pureComponentCacheStatistics().hits());
+  }
+
+  @Test
+  void pureComponent_additionalAttributeValueWithQuotes_rendersComponentUnchanged() {
+    ComponentDialect componentDialect = componentDialect().addPureComponent("pure-with-parameter", "components/with-parameter.html");
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+    String template = "<pl:pure-with-parameter pl:parameter='value' data-title='${title}' />";
+
+    String html = render(templateEngine, template, Map.of("title", "a\" th:text=\"'injected'"));
+
+    assertMarkupEquals("<i>value</i>", html);
+  }
+
+  @Test
+  void pureComponent_slotContentDefined_rendersWithoutCache() {
+    ComponentDialect componentDialect = componentDialect().addPureComponent("pure-with-default-slot", "components/with-default-slot.html");
+
+    String html = render("<pl:pure-with-default-slot><i>slot-content</i></pl:pure-with-default-slot>", componentDialect);
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <i>slot-content</i>"
+        + "</div>", html);
+    assertEquals(0, componentDialect.pureComponentCacheStatistics().misses());
+  }
+
+  @Test
+  void pureComponentCacheSize_sizeExceeded_evictsLeastRecentlyUsedOutput() {
+    ComponentDialect componentDialect = componentDialect()
+        .addPureComponent("pure-with-parameter", "components/with-parameter.html")
+        .pureComponentCacheSize(1);
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+    String template = "<pl:pure-with-parameter pl:parameter='${value}' />";
+
+    render(templateEngine, template, Map.of("value", "first"));
+    render(templateEngine, template, Map.of("value", "second"));
+    render(templateEngine, template, Map.of("value", "first"));
+
+    assertEquals(0, componentDialect.pureComponentCacheStatistics().hits());
+    assertEquals(1, componentDialect.pureComponentCacheStatistics().size());
+  }
+
+  @Test
+  void warmUp_componentsWarmedUp_rendersComponents() throws Exception {
+    ComponentDialect componentDialect = componentDialect();
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+
+    ComponentWarmUpResult result = warmUp(componentDialect, templateEngine);
+    String html = render(templateEngine, "<pl:with-default-slot><pl:simple /></pl:with-default-slot>", emptyMap());
+
+    assertTrue(result.isSuccessful());
+    assertTrue(result.warmedUpComponents().containsAll(asList("simple", "with-default-slot")));
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <i>simple</i>"
+        + "</div>", html);
+  }
+
+  @Test
+  void warmUp_componentTemplateMissing_reportsFailure() throws Exception {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setCheckExistence(true);
+
+    ComponentDialect componentDialect = new ComponentDialect()
+        .addComponent("simple", "components/simple.html")
+        .addComponent("missing", "components/missing.html");
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+    templateEngine.addDialect(componentDialect);
+
+    ComponentWarmUpResult result = warmUp(componentDialect, templateEngine);
+
+    assertFalse(result.isSuccessful());
+    assertEquals(asList("simple"), result.warmedUpComponents());
+    assertEquals(setOf("missing"), result.failures().keySet());
+  }
+
+  @Test
+  void warmUp_invalidComponentTemplates_reportsFailures() throws Exception {
+    ComponentDialect componentDialect = invalidComponentDialect();
+
+    ComponentWarmUpResult result = warmUp(componentDialect, cachingTemplateEngine(componentDialect));
+
+    assertEquals(setOf("with-duplicate-slots", "with-empty-slot-name", "without-fragment"), result.failures().keySet());
+  }
+
+  @Test
+  void warmUp_invalidNonCacheableComponentTemplates_reportsFailures() throws Exception {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setCacheable(false);
+
+    ComponentDialect componentDialect = invalidComponentDialect().addComponent("simple", "components/simple.html");
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+    templateEngine.addDialect(componentDialect);
+
+    ComponentWarmUpResult result = warmUp(componentDialect, templateEngine);
+
+    assertEquals(asList("simple"), result.warmedUpComponents());
+    assertEquals(setOf("with-duplicate-slots", "with-empty-slot-name", "without-fragment"), result.failures().keySet());
+  }
+
+  @Test
+  void componentFootprints_componentRendered_reportsAnalysedFragment() {
+    ComponentDialect componentDialect = componentDialect();
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+
+    render(templateEngine, "<pl:simple />", emptyMap());
+    Map<String, ComponentFootprint> componentFootprints = componentDialect.componentFootprints();
+
+    assertEquals(1, componentFootprints.get("simple").templateVersions());
+    assertEquals(5, componentFootprints.get("simple").fragmentEvents());
+    assertTrue(componentFootprints.get("simple").fragmentCharacters() >= "simple".length());
+    assertEquals(0, componentFootprints.get("with-default-slot").templateVersions());
+    assertEquals(0, componentFootprints.get("with-default-slot").fragmentEvents());
+  }
+
+  @Test
+  void componentFootprints_dialectSharedByTemplateEngines_reportsFragmentPerTemplateEngine() {
+    ComponentDialect componentDialect = componentDialect();
+    TemplateEngine firstTemplateEngine = cachingTemplateEngine(componentDialect);
+    TemplateEngine secondTemplateEngine = cachingTemplateEngine(componentDialect);
+
+    render(firstTemplateEngine, "<pl:simple />", emptyMap());
+    render(secondTemplateEngine, "<pl:simple />", emptyMap());
+    render(secondTemplateEngine, "<div><pl:simple /></div>", emptyMap());
+
+    assertEquals(2, componentDialect.componentFootprints().get("simple").templateVersions());
+    assertEquals(10, componentDialect.componentFootprints().get("simple").fragmentEvents());
+  }
+
+  @Test
+  void throttledProcessing_componentWrappingIteration_writesOutputBeforeIterationCompleted() {
+    TemplateEngine templateEngine = cachingTemplateEngine(streamingComponentDialect());
+    CountingIterable items = new CountingIterable(10_000);
+    String template = "<pl:with-default-slot><i th:each='item : ${items}' th:text='${item}'></i></pl:with-default-slot>";
+
+    List<String> chunks = renderThrottled(templateEngine, template, Map.of("items", items), 1024);
+
+    assertTrue(chunks.get(0).trim().startsWith("<div>"));
+    assertTrue(items.consumedAfterFirstChunk < 1_000);
+    assertEquals(render(templateEngine, template, Map.of("items", new CountingIterable(10_000))), String.join("", chunks).trim());
+  }
+
+  @Test
+  void throttledProcessing_streamingComponentWrappingIteration_writesOutputBeforeIterationCompleted() {
+    TemplateEngine templateEngine = cachingTemplateEngine(streamingComponentDialect());
+    CountingIterable items = new CountingIterable(10_000);
+    String template = "<pl:streaming-with-default-slot><i th:each='item : ${items}' th:text='${item}'></i></pl:streaming-with-default-slot>";
+
+    List<String> chunks = renderThrottled(templateEngine, template, Map.of("items", items), 1024);
 
-    IModel model = modelFor(templateEvents);
+    assertTrue(chunks.get(0).trim().startsWith("<div>"));
+    assertTrue(items.consumedAfterFirstChunk < 1_000);
+    assertEquals(render(templateEngine, template, Map.of("items", new CountingIterable(10_000))), String.join("", chunks).trim());
+  }
 
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, startTemplateEvent);
+  @Test
+  void throttledProcessing_warmedUpComponentWithinIteration_writesOutputBeforeIterationCompleted() throws Exception {
+    ComponentDialect componentDialect = componentDialect();
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+    CountingIterable items = new CountingIterable(10_000);
+    String template = "<th:block th:each='item : ${items}'><pl:with-parameter pl:parameter='${item}' /></th:block>";
+
+    warmUp(componentDialect, templateEngine);
+    List<String> chunks = renderThrottled(templateEngine, template, Map.of("items", items), 1024);
+
+    assertTrue(chunks.get(0).trim().startsWith("<i>0</i>"));
+    assertTrue(items.consumedAfterFirstChunk < 1_000);
+    assertEquals(render(templateEngine, template, Map.of("items", new CountingIterable(10_000))), String.join("", chunks).trim());
+  }
 
-    assertEquals(templateEvents.subList(0, 3), subTree);
+  @Test
+  void hotReload_componentTemplateCacheCleared_rendersChangedTemplate() {
+    InMemoryTemplateResolver templateResolver = new InMemoryTemplateResolver()
+        .template("page", "<pl:editable><i>slot-content</i></pl:editable>")
+        .template("components/editable", "<th:block th:fragment='editable()'><b>first</b><pl:slot /></th:block>");
+    TemplateEngine templateEngine = templateEngine(templateResolver, new ComponentDialect()
+        .addComponent("editable", "components/editable"));
+
+    String firstHtml = templateEngine.process("page", new Context());
+    templateResolver.template("components/editable", "<th:block th:fragment='editable()'><b>second</b><pl:slot /></th:block>");
+    String cachedHtml = templateEngine.process("page", new Context());
+    templateEngine.clearTemplateCacheFor("components/editable");
+    String secondHtml = templateEngine.process("page", new Context());
+
+    assertMarkupEquals("<b>first</b><i>slot-content</i>", firstHtml);
+    assertMarkupEquals("<b>first</b><i>slot-content</i>", cachedHtml);
+    assertMarkupEquals("<b>second</b><i>slot-content</i>", secondHtml);
   }
 
   @Test
-  void subTree_emptyTemplateEvents_returnsEmptyList() {
-    ITemplateEvent startTemplateEvent = openElementTag();
-    IModel model = modelFor(emptyList());
+  void hotReload_componentTemplateCacheExpired_rendersChangedTemplate() throws Exception {
+    InMemoryTemplateResolver templateResolver = new InMemoryTemplateResolver()
+        .template("page", "<pl:editable />")
+        .template("components/editable", "<th:block th:fragment='editable()'><b>first</b></th:block>");
+    templateResolver.setCacheTTLMs(1L);
+    TemplateEngine templateEngine = templateEngine(templateResolver, new ComponentDialect()
+        .addPureComponent("editable", "components/editable"));
+
+    String firstHtml = templateEngine.process("page", new Context());
+    templateResolver.template("components/editable", "<th:block th:fragment='editable()'><b>second</b></th:block>");
+    Thread.sleep(10);
+    String secondHtml = templateEngine.process("page", new Context());
+
+    assertMarkupEquals("<b>first</b>", firstHtml);
+    assertMarkupEquals("<b>second</b>", secondHtml);
+  }
 
-    List<ITemplateEvent> subTree = ComponentModelProcessor.subTreeFrom(model, startTemplateEvent);
+  @Test
+  void hotReload_pureComponentTemplateChanged_discardsOutputsOfOutdatedTemplate() throws Exception {
+    InMemoryTemplateResolver templateResolver = new InMemoryTemplateResolver()
+        .template("page", "<pl:editable />")
+        .template("components/editable", "<th:block th:fragment='editable()'><b>first</b></th:block>");
+    ComponentDialect componentDialect = new ComponentDialect()
+        .addPureComponent("editable", "components/editable");
+    TemplateEngine templateEngine = templateEngine(templateResolver, componentDialect);
+
+    templateEngine.process("page", new Context());
+    templateResolver.template("components/editable", "<th:block th:fragment='editable()'><b>second</b></th:block>");
+    templateEngine.clearTemplateCacheFor("components/editable");
+    String secondHtml = templateEngine.process("page", new Context());
+
+    for (int i = 0; i < 100 && componentDialect.pureComponentCacheStatistics().size() > 1; i++) {
+      System.gc();
+      // drops the plans of collected template versions
+      componentDialect.componentFootprints();
+      Thread.sleep(50);
+    }
 
-    assertEquals(emptyList(), subTree);
+    assertMarkupEquals("<b>second</b>", secondHtml);
+    assertEquals(1, componentDialect.pureComponentCacheStatistics().size());
   }
 
-  private static IModel modelFor(List<ITemplateEvent> templateEvents) {
-    IModel model = mock(IModel.class);
-    when(model.size()).thenReturn(templateEvents.size());
-    when(model.get(anyInt())).thenAnswer(answer -> templateEvents.get(answer.getArgument(0, Integer.class)));
-    return model;
+  @Test
+  void hotReload_componentTemplateNotCacheable_rendersChangedTemplate() {
+    InMemoryTemplateResolver templateResolver = new InMemoryTemplateResolver()
+        .template("page", "<pl:editable><i>slot-content</i></pl:editable>")
+        .template("components/editable", "<th:block th:fragment='editable()'><b>first</b><pl:slot /></th:block>");
+    templateResolver.setNonCacheablePatterns(setOf("components/*"));
+    TemplateEngine templateEngine = templateEngine(templateResolver, new ComponentDialect()
+        .addComponent("editable", "components/editable"));
+
+    String firstHtml = templateEngine.process("page", new Context());
+    templateResolver.template("components/editable", "<th:block th:fragment='editable()'><b>second</b><pl:slot /></th:block>");
+    String secondHtml = templateEngine.process("page", new Context());
+
+    assertMarkupEquals("<b>first</b><i>slot-content</i>", firstHtml);
+    assertMarkupEquals("<b>second</b><i>slot-content</i>", secondHtml);
   }
 
-  private static ITemplateEvent templateStart() {
-    return mock(ITemplateStart.class);
+  @Test
+  void customPrefix_componentsOfMultiplePrefixes_rendersComponents() {
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect());
+    templateEngine.addDialect(new ComponentDialect("ds").addComponent("panel", "components/ds/panel.html"));
+
+    String html = render(templateEngine, ""
+        + "<ds:panel ds:title='title'>"
+        + "  <pl:with-parameter pl:parameter='nested' />"
+        + "</ds:panel>", emptyMap());
+
+    assertMarkupEquals(""
+        + "<section>"
+        + "  <h1>title</h1>"
+        + "  <i>nested</i>"
+        + "</section>", html);
   }
 
-  private static ITemplateEvent templateEnd() {
-    return mock(ITemplateEnd.class);
+  @Test
+  void customPrefix_streamingComponentsOfMultiplePrefixes_rendersComponents() {
+    TemplateEngine templateEngine = cachingTemplateEngine(streamingComponentDialect());
+    templateEngine.addDialect(new ComponentDialect("ds").addStreamingComponent("panel", "components/ds/panel.html"));
+
+    String html = render(templateEngine, ""
+        + "<ds:panel ds:title='title'>"
+        + "  <pl:streaming-with-default-slot><i>slot-content</i></pl:streaming-with-default-slot>"
+        + "</ds:panel>", emptyMap());
+
+    assertMarkupEquals(""
+        + "<section>"
+        + "  <h1>title</h1>"
+        + "  <div>"
+        + "    <i>with-default-slot</i>"
+        + "    <i>slot-content</i>"
+        + "  </div>"
+        + "</section>", html);
   }
 
-  private static ITemplateEvent openElementTag() {
-    return mock(IOpenElementTag.class);
+  @Test
+  void customPrefix_prefixSpecifiedWhenAddingDialect_rendersComponents() {
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(new ClassLoaderTemplateResolver(), new StringTemplateResolver())));
+    templateEngine.addDialect("ui", componentDialect());
+
+    String html = render(templateEngine, "<ui:simple /><pl:simple />", emptyMap());
+
+    assertMarkupEquals("<i>simple</i><pl:simple />", html);
   }
 
-  private static ITemplateEvent closeElementTag() {
-    return mock(ICloseElementTag.class);
+  @Test
+  void customPrefix_invalidPrefix_fails() {
+    assertThrows(IllegalArgumentException.class, () -> new ComponentDialect(""));
+    assertThrows(IllegalArgumentException.class, () -> new ComponentDialect("ds:"));
   }
 
-  private static ITemplateEvent standaloneElementTag() {
-    return mock(IStandaloneElementTag.class);
+  @Test
+  void attributeVariables_props_exposesAttributesAsPropsOnly() {
+    ComponentDialect componentDialect = new ComponentDialect()
+        .addComponent("with-props", "components/with-props.html")
+        .attributeVariables(AttributeVariables.PROPS);
+
+    String html = render("<pl:with-props pl:title='${value}' pl:count='1' />", componentDialect, Map.of("value", "title"));
+
+    assertMarkupEquals("<i>title</i><b>2</b>", html);
   }
 
-  private static ITemplateEvent textElementTag() {
-    return mock(IText.class);
+  @Test
+  void attributeVariables_propsWithDeclaredAttributes_exposesConvertedValuesAndDefaults() {
+    ComponentDialect componentDialect = new ComponentDialect()
+        .addComponent("with-props", "components/with-props.html", attributes()
+            .required("title", String.class)
+            .optional("count", Integer.class, 0))
+        .attributeVariables(AttributeVariables.PROPS);
+
+    String html = render("<pl:with-props pl:title='title' />", componentDialect);
+
+    assertMarkupEquals("<i>title</i><b>1</b>", html);
+  }
+
+  @Test
+  void attributeVariables_propsOfPureComponent_rendersCachedOutput() {
+    ComponentDialect componentDialect = new ComponentDialect()
+        .addPureComponent("with-props", "components/with-props.html")
+        .attributeVariables(AttributeVariables.PROPS);
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+    String template = "<pl:with-props pl:title='${value}' pl:count='1' />";
+
+    String firstHtml = render(templateEngine, template, Map.of("value", "first"));
+    String secondHtml = render(templateEngine, template, Map.of("value", "first"));
+    String thirdHtml = render(templateEngine, template, Map.of("value", "second"));
+
+    assertMarkupEquals("<i>first</i><b>2</b>", firstHtml);
+    assertMarkupEquals("<i>first</i><b>2</b>", secondHtml);
+    assertMarkupEquals("<i>second</i><b>2</b>", thirdHtml);
+    assertEquals(1, componentDialect.pureComponentCacheStatistics().hits());
+  }
+
+  @Test
+  void lazyAttributes_attributeNotAccessed_doesNotEvaluateAttribute() {
+    AtomicInteger counter = new AtomicInteger();
+
+    String html = render("<pl:with-conditional-parameter pl:visible='false' pl:value='${counter.incrementAndGet()}' />",
+        lazyComponentDialect(), Map.of("counter", counter));
+
+    assertMarkupEquals("", html);
+    assertEquals(0, counter.get());
+  }
+
+  @Test
+  void lazyAttributes_attributeAccessedRepeatedly_evaluatesAttributeOnce() {
+    AtomicInteger counter = new AtomicInteger();
+
+    String html = render("<pl:with-conditional-parameter pl:visible='true' pl:value='${counter.incrementAndGet()}' />",
+        lazyComponentDialect(), Map.of("counter", counter));
+
+    assertMarkupEquals("<i>1</i><b>1</b>", html);
+    assertEquals(1, counter.get());
+  }
+
+  @Test
+  void lazyAttributes_disabled_evaluatesAttributeRightAway() {
+    AtomicInteger counter = new AtomicInteger();
+
+    render("<pl:with-conditional-parameter pl:visible='false' pl:value='${counter.incrementAndGet()}' />",
+        componentDialect().addComponent("with-conditional-parameter", "components/with-conditional-parameter.html"),
+        Map.of("counter", counter));
+
+    assertEquals(1, counter.get());
+  }
+
+  @Test
+  void lazyAttributes_attributeReferencingVariableOfSameName_evaluatesAttributeAtUsagePosition() {
+    String html = render("<pl:with-conditional-parameter pl:visible='true' pl:value='${value}' />",
+        lazyComponentDialect(), Map.of("value", "value"));
+
+    assertMarkupEquals("<i>value</i><b>value</b>", html);
+  }
+
+  @Test
+  void lazyAttributes_attributeReferencingVariableShadowedByComponent_evaluatesAttributeAtUsagePosition() {
+    String html = render("<th:block th:each='item : ${items}'><pl:with-shadowing-iteration pl:label='${item}' /></th:block>",
+        lazyComponentDialect().addComponent("with-shadowing-iteration", "components/with-shadowing-iteration.html"),
+        Map.of("items", List.of("a")));
+
+    assertMarkupEquals("<i>a</i><i>a</i>", html);
+  }
+
+  @Test
+  void lazyAttributes_attributeReferencingShadowedVariableByName_evaluatesAttributeAtUsagePosition() {
+    String html = render("<th:block th:each='item : ${items}'><pl:with-shadowing-iteration pl:label=\"${#root['item']}\" /></th:block>",
+        lazyComponentDialect().addComponent("with-shadowing-iteration", "components/with-shadowing-iteration.html"),
+        Map.of("items", List.of("a")));
+
+    assertMarkupEquals("<i>a</i><i>a</i>", html);
+  }
+
+  @Test
+  void lazyAttributes_propsForwardedToNestedComponent_evaluatesPropsOfEnclosingComponent() {
+    ComponentDialect componentDialect = new ComponentDialect()
+        .addComponent("with-props", "components/with-props.html")
+        .addComponent("forwarding-props", "components/forwarding-props.html")
+        .attributeVariables(AttributeVariables.PROPS)
+        .lazyAttributes(true);
+
+    String html = render("<pl:forwarding-props pl:title='title' pl:count='1' />", componentDialect);
+
+    assertMarkupEquals("<i>title</i><b>2</b>", html);
+  }
+
+  @Test
+  void expansionLimits_componentUsingItself_failsWithComponentChain() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:recursive />", componentDialect().addComponent("recursive", "components/recursive.html")));
+
+    assertTrue(rootCauseOf(exception).getMessage().startsWith("component nesting depth exceeds the maximum of 64: "
+        + "pl:recursive > pl:recursive > pl:recursive"));
+  }
+
+  @Test
+  void expansionLimits_componentUsingItselfThroughSlot_failsWithComponentChain() {
+    ComponentDialect componentDialect = componentDialect()
+        .addComponent("recursive-through-slot", "components/recursive-through-slot.html")
+        .maxNestingDepth(4);
+
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:recursive-through-slot />", componentDialect));
+
+    assertEquals("component nesting depth exceeds the maximum of 4: pl:recursive-through-slot > pl:with-default-slot"
+        + " > pl:recursive-through-slot > pl:with-default-slot > pl:recursive-through-slot", rootCauseOf(exception).getMessage());
+  }
+
+  @Test
+  void expansionLimits_nestingDepthExceeded_failsWithComponentChain() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<pl:with-default-slot><pl:with-default-slot><pl:simple /></pl:with-default-slot></pl:with-default-slot>",
+            componentDialect().maxNestingDepth(2)));
+
+    assertEquals("component nesting depth exceeds the maximum of 2: pl:with-default-slot > pl:with-default-slot > pl:simple",
+        rootCauseOf(exception).getMessage());
+  }
+
+  @Test
+  void expansionLimits_nestingDepthNotExceeded_rendersComponents() {
+    String html = render("<pl:with-default-slot><pl:with-default-slot><pl:simple /></pl:with-default-slot></pl:with-default-slot>",
+        componentDialect().maxNestingDepth(3));
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <i>with-default-slot</i>"
+        + "  <div>"
+        + "    <i>with-default-slot</i>"
+        + "    <i>simple</i>"
+        + "  </div>"
+        + "</div>", html);
+  }
+
+  @Test
+  void expansionLimits_expandedEventsExceeded_failsWithComponentChain() {
+    TemplateProcessingException exception = assertThrows(TemplateProcessingException.class,
+        () -> render("<div><pl:simple /><pl:with-default-slot><pl:simple /><pl:simple /></pl:with-default-slot></div>",
+            componentDialect().maxExpandedEvents(25)));
+
+    assertEquals("expanded component events exceed the maximum of 25 per rendering: pl:with-default-slot > pl:simple",
+        rootCauseOf(exception).getMessage());
+  }
+
+  @Test
+  void expansionLimits_expandedEventsLimited_registersNoPreProcessor() {
+    ComponentDialect componentDialect = componentDialect().maxExpandedEvents(25);
+
+    assertTrue(componentDialect.getPreProcessors().isEmpty());
+  }
+
+  @Test
+  void expansionLimits_expandedEventsNotExceededPerRendering_rendersComponentsRepeatedly() {
+    ComponentDialect componentDialect = componentDialect().maxExpandedEvents(25);
+    TemplateEngine templateEngine = cachingTemplateEngine(componentDialect);
+
+    for (int i = 0; i < 3; i++) {
+      String html = render(templateEngine, "<div><pl:simple /><pl:simple /></div>", emptyMap());
+
+      assertMarkupEquals("<div><i>simple</i><i>simple</i></div>", html);
+    }
+  }
+
+  @Test
+  void expansionLimits_invalidLimits_fail() {
+    assertThrows(IllegalArgumentException.class, () -> new ComponentDialect().maxNestingDepth(0));
+    assertThrows(IllegalArgumentException.class, () -> new ComponentDialect().maxExpandedEvents(0));
+  }
+
+  @Test
+  void addComponents_componentsDiscoveredOnClasspath_rendersDiscoveredComponents() {
+    TemplateEngine templateEngine = discoveringTemplateEngine(new ComponentDialect().addComponents("discovered", "discovered"));
+
+    String html = render(templateEngine, "<pl:panel><pl:badge pl:label='label' /></pl:panel>", emptyMap());
+
+    assertMarkupEquals(""
+        + "<div>"
+        + "  <b>label</b>"
+        + "</div>", html);
+  }
+
+  @Test
+  void addComponents_componentRegisteredBeforeDiscovery_rendersRegisteredComponent() {
+    String html = render(discoveringTemplateEngine(new ComponentDialect()
+        .addComponent("badge", "components/simple")
+        .addComponents("discovered", "discovered")), "<pl:badge pl:label='label' />", emptyMap());
+
+    assertMarkupEquals("<i>simple</i>", html);
+  }
+
+  @Test
+  void addComponents_componentRegisteredAfterDiscovery_rendersRegisteredComponent() {
+    String html = render(discoveringTemplateEngine(new ComponentDialect()
+        .addComponents("discovered", "discovered")
+        .addComponent("badge", "components/simple")), "<pl:badge pl:label='label' />", emptyMap());
+
+    assertMarkupEquals("<i>simple</i>", html);
+  }
+
+  @Test
+  void addComponent_sameComponentRegisteredTwice_rendersLastRegisteredComponent() {
+    String html = render("<pl:simple />", new ComponentDialect()
+        .addComponent("simple", "components/with-parameter.html")
+        .addComponent("simple", "components/simple.html"));
+
+    assertMarkupEquals("<i>simple</i>", html);
+  }
+
+  private static TemplateEngine discoveringTemplateEngine(ComponentDialect componentDialect) {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setSuffix(".html");
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(templateResolver, new StringTemplateResolver())));
+    templateEngine.addDialect(componentDialect);
+
+    return templateEngine;
+  }
+
+  private static ComponentWarmUpResult warmUp(ComponentDialect componentDialect, TemplateEngine templateEngine) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      return componentDialect.warmUp(templateEngine, executor).get(10, SECONDS);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static Throwable rootCauseOf(Throwable throwable) {
+    return throwable.getCause() != null ? rootCauseOf(throwable.getCause()) : throwable;
   }
 
   private static void assertMarkupEquals(String expected, String actual) {
@@ -395,30 +1233,159 @@ class ComponentModelProcessorTest {
   }
 
   private static String render(String template) {
-    ComponentDialect componentDialect = new ComponentDialect()
+    return render(template, componentDialect());
+  }
+
+  private static ComponentDialect componentDialect() {
+    return new ComponentDialect()
         .addComponent("simple", "components/simple.html")
         .addComponent("with-parameter", "components/with-parameter.html")
         .addComponent("with-default-and-named-slots", "components/with-default-and-named-slots.html")
         .addComponent("with-default-slot", "components/with-default-slot.html")
         .addComponent("with-named-slots", "components/with-named-slots.html")
-        .addComponent("with-slot-with-fallback", "components/with-slot-with-fallback.html");
+        .addComponent("with-slot-with-fallback", "components/with-slot-with-fallback.html")
+        .addComponent("with-nested-slots", "components/with-nested-slots.html")
+        .addComponent("with-declared-parameters", "components/with-declared-parameters.html", attributes()
+            .required("title", String.class)
+            .optional("count", Integer.class, 0));
+  }
+
+  private static ComponentDialect streamingComponentDialect() {
+    return componentDialect()
+        .addComponent("with-parameter-and-default-slot", "components/with-parameter-and-default-slot.html")
+        .addStreamingComponent("streaming-with-default-slot", "components/with-default-slot.html")
+        .addStreamingComponent("streaming-with-slot-with-fallback", "components/with-slot-with-fallback.html")
+        .addStreamingComponent("streaming-with-parameter-and-default-slot", "components/with-parameter-and-default-slot.html")
+        .addStreamingComponent("streaming-with-named-slots", "components/with-named-slots.html");
+  }
 
+  private static ComponentDialect lazyComponentDialect() {
+    return componentDialect()
+        .addComponent("with-conditional-parameter", "components/with-conditional-parameter.html")
+        .lazyAttributes(true);
+  }
+
+  private static ComponentDialect invalidComponentDialect() {
+    return new ComponentDialect()
+        .addComponent("without-fragment", "components/invalid/without-fragment.html")
+        .addComponent("with-duplicate-slots", "components/invalid/with-duplicate-slots.html")
+        .addComponent("with-empty-slot-name", "components/invalid/with-empty-slot-name.html");
+  }
+
+  private static String render(String template, ComponentDialect componentDialect) {
     TemplateEngine templateEngine = new TemplateEngine();
     templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(new ClassLoaderTemplateResolver(), new StringTemplateResolver())));
     templateEngine.addDialect(componentDialect);
     templateEngine.setCacheManager(null);
     templateEngine.clearTemplateCache();
 
-    String result = templateEngine.process(new TemplateSpec(template, HTML), new Context());
+    return render(templateEngine, template, emptyMap());
+  }
+
+  private static String render(String template, ComponentDialect componentDialect, Map<String, Object> variables) {
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(new ClassLoaderTemplateResolver(), new StringTemplateResolver())));
+    templateEngine.addDialect(componentDialect);
+    templateEngine.setCacheManager(null);
+
+    return render(templateEngine, template, variables);
+  }
+
+  private static String render(TemplateEngine templateEngine, String template, Map<String, Object> variables) {
+    String result = templateEngine.process(new TemplateSpec(template, HTML), new Context(null, variables));
 
     return result.trim();
   }
 
+  private static List<String> renderThrottled(TemplateEngine templateEngine, String template, Map<String, Object> variables, int chunkSize) {
+    CountingIterable items = (CountingIterable) variables.get("items");
+    IThrottledTemplateProcessor templateProcessor = templateEngine.processThrottled(new TemplateSpec(template, HTML), new Context(null, variables));
+    List<String> chunks = new ArrayList<>();
+
+    while (!templateProcessor.isFinished()) {
+      StringWriter writer = new StringWriter();
+      templateProcessor.process(chunkSize, writer);
+      chunks.add(writer.toString());
+
+      if (chunks.size() == 1) {
+        items.consumedAfterFirstChunk = items.consumed;
+      }
+    }
+
+    return chunks;
+  }
+
+  private static TemplateEngine cachingTemplateEngine(ComponentDialect componentDialect) {
+    StringTemplateResolver stringTemplateResolver = new StringTemplateResolver();
+    stringTemplateResolver.setCacheable(true);
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolvers(setOf(new TemplateResolverChain(new ClassLoaderTemplateResolver(), stringTemplateResolver)));
+    templateEngine.addDialect(componentDialect);
+
+    return templateEngine;
+  }
+
+  private static TemplateEngine templateEngine(ITemplateResolver templateResolver, ComponentDialect componentDialect) {
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+    templateEngine.addDialect(componentDialect);
+
+    return templateEngine;
+  }
+
   @SafeVarargs
   private static <T> Set<T> setOf(T... items) {
     return new LinkedHashSet<>(asList(items));
   }
 
+  // stands in for a data driver publishing its elements one by one while the template is processed
+  private static class CountingIterable implements Iterable<Integer> {
+
+    private final int size;
+    private int consumed;
+    private int consumedAfterFirstChunk;
+
+    private CountingIterable(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Iterator<Integer>() {
+
+        @Override
+        public boolean hasNext() {
+          return consumed < size;
+        }
+
+        @Override
+        public Integer next() {
+          return consumed++;
+        }
+      };
+    }
+  }
+
+  private static class InMemoryTemplateResolver extends AbstractConfigurableTemplateResolver {
+
+    private final Map<String, String> templates = new ConcurrentHashMap<>();
+
+    private InMemoryTemplateResolver template(String templateName, String template) {
+      templates.put(templateName, template);
+
+      return this;
+    }
+
+    @Override
+    protected ITemplateResource computeTemplateResource(
+        IEngineConfiguration configuration, String ownerTemplate, String template, String resourceName, String characterEncoding,
+        Map<String, Object> templateResolutionAttributes
+    ) {
+      return new StringTemplateResource(templates.get(resourceName));
+    }
+  }
+
   private static class TemplateResolverChain implements ITemplateResolver {
 
     private final ITemplateResolver[] templateResolvers;
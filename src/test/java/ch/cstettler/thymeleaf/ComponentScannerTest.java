@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ComponentScannerTest {
+
+  @Test
+  void componentNamesIn_directory_returnsComponentsWithMatchingTemplate() {
+    Set<String> componentNames = ComponentScanner.componentNamesIn(getClass().getClassLoader(), "discovered");
+
+    assertEquals(Set.of("badge", "panel"), componentNames);
+  }
+
+  @Test
+  void componentNamesIn_jar_returnsComponentsWithMatchingTemplate(@TempDir Path tempDirectory) throws IOException {
+    Path jar = jarWith(tempDirectory,
+        "jarred/button/button.html",
+        "jarred/card/card.html",
+        "jarred/card/card-header.html",
+        "jarred/misplaced/other.html",
+        "jarred/nested/nested/nested.html",
+        "other/alert/alert.html"
+    );
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+      Set<String> componentNames = ComponentScanner.componentNamesIn(classLoader, "/jarred/");
+
+      assertEquals(Set.of("button", "card"), componentNames);
+    }
+  }
+
+  @Test
+  void componentNamesIn_unknownLocation_returnsNoComponents() {
+    Set<String> componentNames = ComponentScanner.componentNamesIn(getClass().getClassLoader(), "unknown");
+
+    assertEquals(Set.of(), componentNames);
+  }
+
+  private static Path jarWith(Path directory, String... entryNames) throws IOException {
+    Path jar = directory.resolve("components.jar");
+
+    Set<String> directoryNames = new LinkedHashSet<>();
+    for (String entryName : entryNames) {
+      for (int i = entryName.indexOf('/'); i >= 0; i = entryName.indexOf('/', i + 1)) {
+        directoryNames.add(entryName.substring(0, i + 1));
+      }
+    }
+
+    try (JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(jar))) {
+      for (String directoryName : directoryNames) {
+        jarOutputStream.putNextEntry(new JarEntry(directoryName));
+        jarOutputStream.closeEntry();
+      }
+
+      for (String entryName : entryNames) {
+        jarOutputStream.putNextEntry(new JarEntry(entryName));
+        jarOutputStream.write("<th:block th:fragment=\"component()\"></th:block>".getBytes());
+        jarOutputStream.closeEntry();
+      }
+    }
+
+    return jar;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.context.EngineContext;
+import org.thymeleaf.context.IEngineContext;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Locale;
+
+import static java.util.Collections.emptySet;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.thymeleaf.templatemode.TemplateMode.HTML;
+
+class ComponentTemplateCacheTest {
+
+  private static final String PAGE_TEMPLATE = "components/with-default-slot.html";
+  private static final String COMPONENT_TEMPLATE = "components/simple.html";
+
+  @Test
+  void standaloneCacheKey_templateProcessedOnItsOwn_matchesCacheKeyOfTemplateManager() {
+    TemplateEngine templateEngine = templateEngine(true);
+    ComponentTemplateCache componentTemplateCache = new ComponentTemplateCache(COMPONENT_TEMPLATE);
+
+    contextOf(templateEngine, COMPONENT_TEMPLATE);
+
+    assertNotNull(templateCacheOf(templateEngine).get(componentTemplateCache.standaloneCacheKey(null)),
+        "template cache key of templates processed on their own has changed");
+  }
+
+  @Test
+  void ownedCacheKey_templateParsedStandalone_matchesCacheKeyOfTemplateManager() {
+    TemplateEngine templateEngine = templateEngine(true);
+    ComponentTemplateCache componentTemplateCache = new ComponentTemplateCache(COMPONENT_TEMPLATE);
+    IEngineContext context = contextOf(templateEngine, PAGE_TEMPLATE);
+
+    templateEngine.getConfiguration().getTemplateManager().parseStandalone(context, COMPONENT_TEMPLATE, emptySet(), HTML, true, true);
+
+    assertNotNull(templateCacheOf(templateEngine).get(componentTemplateCache.ownedCacheKey(context)),
+        "template cache key of templates parsed via parseStandalone has changed");
+  }
+
+  @Test
+  void templateModel_templateNotCachedByOtherTemplateEngine_cachesTemplate() {
+    TemplateEngine nonCachingTemplateEngine = templateEngine(false);
+    TemplateEngine cachingTemplateEngine = templateEngine(true);
+    ComponentTemplateCache componentTemplateCache = new ComponentTemplateCache(COMPONENT_TEMPLATE);
+
+    componentTemplateCache.templateModel(contextOf(nonCachingTemplateEngine, PAGE_TEMPLATE));
+    componentTemplateCache.templateModel(contextOf(cachingTemplateEngine, PAGE_TEMPLATE));
+
+    assertNotNull(templateCacheOf(cachingTemplateEngine).get(componentTemplateCache.standaloneCacheKey(null)));
+  }
+
+  private static TemplateEngine templateEngine(boolean cacheable) {
+    ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+    templateResolver.setCacheable(cacheable);
+
+    TemplateEngine templateEngine = new TemplateEngine();
+    templateEngine.setTemplateResolver(templateResolver);
+
+    return templateEngine;
+  }
+
+  private static IEngineContext contextOf(TemplateEngine templateEngine, String template) {
+    IEngineConfiguration configuration = templateEngine.getConfiguration();
+    IEngineContext context = new EngineContext(configuration, null, null, Locale.getDefault(), null);
+    // the template engine sets the data of the template on the engine context, which is kept as long as the throttled
+    // processing is not started
+    templateEngine.processThrottled(new TemplateSpec(template, HTML), context);
+
+    return context;
+  }
+
+  private static ICache<TemplateCacheKey, TemplateModel> templateCacheOf(TemplateEngine templateEngine) {
+    return templateEngine.getConfiguration().getCacheManager().getTemplateCache();
+  }
+}
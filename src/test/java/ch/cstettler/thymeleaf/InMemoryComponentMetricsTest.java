@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import ch.cstettler.thymeleaf.InMemoryComponentMetrics.ComponentMetrics;
+import ch.cstettler.thymeleaf.InMemoryComponentMetrics.Histogram;
+import org.junit.jupiter.api.Test;
+
+class InMemoryComponentMetricsTest {
+
+  @Test
+  void componentRendered_multipleRenderings_countsInvocationsPerComponent() {
+    InMemoryComponentMetrics metrics = new InMemoryComponentMetrics();
+
+    metrics.componentRendered("a", 1, 2, 3, 4, 5);
+    metrics.componentRendered("a", 1, 2, 3, 4, 5);
+    metrics.componentRendered("b", 1, 2, 3, 4, 5);
+
+    assertEquals(2, metrics.metricsFor("a").invocations());
+    assertEquals(1, metrics.metricsFor("b").invocations());
+    assertNull(metrics.metricsFor("c"));
+  }
+
+  @Test
+  void componentRendered_singleRendering_recordsAllPhases() {
+    InMemoryComponentMetrics metrics = new InMemoryComponentMetrics();
+
+    metrics.componentRendered("a", 1, 2, 3, 4, 5);
+
+    ComponentMetrics componentMetrics = metrics.metricsFor("a");
+    assertEquals(1, componentMetrics.fragmentLoading().total());
+    assertEquals(2, componentMetrics.slotExtraction().total());
+    assertEquals(3, componentMetrics.attributeResolution().total());
+    assertEquals(4, componentMetrics.merging().total());
+    assertEquals(5, componentMetrics.mergedModelSize().total());
+  }
+
+  @Test
+  void histogram_recordedValues_reportsCountTotalMaxAndMean() {
+    Histogram histogram = histogramWith(10, 20, 30);
+
+    assertEquals(3, histogram.count());
+    assertEquals(60, histogram.total());
+    assertEquals(30, histogram.max());
+    assertEquals(20.0, histogram.mean());
+  }
+
+  @Test
+  void histogram_recordedValues_reportsPercentileUpperBounds() {
+    Histogram histogram = histogramWith(1, 2, 3, 100, 1000);
+
+    assertEquals(3, histogram.percentile(50));
+    assertEquals(127, histogram.percentile(80));
+    assertEquals(1000, histogram.percentile(100));
+  }
+
+  @Test
+  void histogram_noRecordedValues_reportsZero() {
+    Histogram histogram = histogramWith();
+
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.mean());
+    assertEquals(0, histogram.percentile(99));
+  }
+
+  private static Histogram histogramWith(long... values) {
+    Histogram histogram = new Histogram();
+    for (long value : values) {
+      histogram.record(value);
+    }
+
+    return histogram;
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2025 Christian Stettler
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.cstettler.thymeleaf;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IStandaloneElementTag;
+import org.thymeleaf.model.ITemplateEnd;
+import org.thymeleaf.model.ITemplateEvent;
+import org.thymeleaf.model.ITemplateStart;
+import org.thymeleaf.model.IText;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TemplateEventsTest {
+
+  @Test
+  void subTreeEnd_nestedSubTrees_returnsEndOfSubTree() {
+    IModel model = modelFor(List.of(
+        templateStart(),
+        openElementTag(),
+        textElementTag(),
+        openElementTag(),
+        standaloneElementTag(),
+        closeElementTag(),
+        openElementTag(),
+        closeElementTag(),
+        closeElementTag(),
+        textElementTag(),
+        templateEnd()
+    ));
+
+    assertEquals(1, TemplateEvents.subTreeEnd(model, 0));
+    assertEquals(9, TemplateEvents.subTreeEnd(model, 1));
+    assertEquals(3, TemplateEvents.subTreeEnd(model, 2));
+    assertEquals(6, TemplateEvents.subTreeEnd(model, 3));
+    assertEquals(5, TemplateEvents.subTreeEnd(model, 4));
+    assertEquals(8, TemplateEvents.subTreeEnd(model, 6));
+  }
+
+  @Test
+  void subTreeEnd_rootOpenElementTag_returnsModelSize() {
+    IModel model = modelFor(List.of(
+        openElementTag(),
+        textElementTag(),
+        closeElementTag()
+    ));
+
+    assertEquals(3, TemplateEvents.subTreeEnd(model, 0));
+  }
+
+  @Test
+  void subTreeEnd_nonRootOpenElementTag_returnsEndOfSubTree() {
+    IModel model = modelFor(List.of(
+        openElementTag(),
+        openElementTag(),
+        textElementTag(),
+        closeElementTag(),
+        closeElementTag()
+    ));
+
+    assertEquals(4, TemplateEvents.subTreeEnd(model, 1));
+  }
+
+  @Test
+  void subTreeEnd_fragmentRootOpenElementTag_returnsEndOfFragmentRoot() {
+    IModel model = modelFor(List.of(
+        templateStart(),
+        openElementTag(),
+        textElementTag(),
+        openElementTag(),
+        textElementTag(),
+        closeElementTag(),
+        textElementTag(),
+        closeElementTag(),
+        textElementTag(),
+        templateEnd()
+    ));
+
+    assertEquals(8, TemplateEvents.subTreeEnd(model, 1));
+  }
+
+  @Test
+  void subTreeEnd_standaloneElementTag_returnsIndexAfterStandaloneElementTag() {
+    IModel model = modelFor(List.of(
+        openElementTag(),
+        standaloneElementTag(),
+        textElementTag(),
+        closeElementTag()
+    ));
+
+    assertEquals(2, TemplateEvents.subTreeEnd(model, 1));
+  }
+
+  @Test
+  void subTreeEnd_siblingSubTrees_returnsEndOfFirstSubTree() {
+    IModel model = modelFor(List.of(
+        openElementTag(),
+        textElementTag(),
+        closeElementTag(),
+        openElementTag(),
+        textElementTag(),
+        closeElementTag()
+    ));
+
+    assertEquals(3, TemplateEvents.subTreeEnd(model, 0));
+  }
+
+  @Test
+  void subTreeEnd_unclosedOpenElementTag_returnsModelSize() {
+    IModel model = modelFor(List.of(openElementTag(), textElementTag()));
+
+    assertEquals(2, TemplateEvents.subTreeEnd(model, 0));
+  }
+
+  @Test
+  void indexOfFirstOpenOrStandaloneElementTag_leadingTextEvents_returnsIndexOfFirstElementTag() {
+    IModel model = modelFor(List.of(templateStart(), textElementTag(), standaloneElementTag(), openElementTag()));
+
+    assertEquals(2, TemplateEvents.indexOfFirstOpenOrStandaloneElementTag(model));
+  }
+
+  @Test
+  void indexOfFirstOpenOrStandaloneElementTag_noElementTags_returnsMinusOne() {
+    IModel model = modelFor(List.of(templateStart(), textElementTag(), templateEnd()));
+
+    assertEquals(-1, TemplateEvents.indexOfFirstOpenOrStandaloneElementTag(model));
+  }
+
+  private static IModel modelFor(List<ITemplateEvent> templateEvents) {
+    IModel model = mock(IModel.class);
+    when(model.size()).thenReturn(templateEvents.size());
+    when(model.get(anyInt())).thenAnswer(answer -> templateEvents.get(answer.getArgument(0, Integer.class)));
+    return model;
+  }
+
+  private static ITemplateEvent templateStart() {
+    return mock(ITemplateStart.class);
+  }
+
+  private static ITemplateEvent templateEnd() {
+    return mock(ITemplateEnd.class);
+  }
+
+  private static ITemplateEvent openElementTag() {
+    return mock(IOpenElementTag.class);
+  }
+
+  private static ITemplateEvent closeElementTag() {
+    return mock(ICloseElementTag.class);
+  }
+
+  private static ITemplateEvent standaloneElementTag() {
+    return mock(IStandaloneElementTag.class);
+  }
+
+  private static ITemplateEvent textElementTag() {
+    return mock(IText.class);
+  }
+}